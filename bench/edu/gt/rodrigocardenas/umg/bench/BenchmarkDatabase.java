@@ -0,0 +1,90 @@
+package edu.gt.rodrigocardenas.umg.bench;
+
+import edu.gt.rodrigocardenas.umg.utils.ConnectionPool;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Base de datos H2 en memoria (modo Oracle) que reemplaza a Oracle XE en los benchmarks
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public final class BenchmarkDatabase {
+
+    public static final String URL = "jdbc:h2:mem:umg_bench;MODE=Oracle;DB_CLOSE_DELAY=-1";
+    public static final String USER = "sa";
+    public static final String PASSWORD = "";
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * Crea la tabla UMG.PRODUCTS, con el seguimiento de cambios descrito en el
+     * README, y el número de productos indicado, y configura
+     * el pool global de {@link ConnectionPool} para que apunte a la base embebida
+     * @param productos Número de productos a insertar (IDs 1..productos)
+     * @param tamanoCacheSentencias Sentencias preparadas por conexión (0 la desactiva)
+     * @return Pool configurado
+     * @throws SQLException si no se pudo crear la base de datos
+     */
+    public static ConnectionPool iniciar(int productos, int tamanoCacheSentencias) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
+             Statement st = conn.createStatement()) {
+            st.execute("DROP SCHEMA IF EXISTS UMG CASCADE");
+            st.execute("CREATE SCHEMA UMG");
+            // En H2 ROW_VERSION se mantiene con DEFAULT/ON UPDATE en lugar del trigger de Oracle
+            st.execute("CREATE SEQUENCE UMG.PRODUCTS_VERSION_SEQ");
+            st.execute("CREATE TABLE UMG.PRODUCTS ("
+                    + "PRODUCT_ID NUMBER PRIMARY KEY, "
+                    + "NAME VARCHAR2(100) NOT NULL, "
+                    + "PRICE NUMBER(10,2) NOT NULL, "
+                    + "ACTIVE CHAR(1) DEFAULT 'Y', "
+                    + "ROW_VERSION NUMBER DEFAULT NEXT VALUE FOR UMG.PRODUCTS_VERSION_SEQ "
+                    + "ON UPDATE NEXT VALUE FOR UMG.PRODUCTS_VERSION_SEQ NOT NULL)");
+            st.execute("CREATE INDEX UMG.PRODUCTS_VERSION_IX ON UMG.PRODUCTS (ROW_VERSION)");
+            st.execute("CREATE TABLE UMG.PRODUCTS_DELETED ("
+                    + "PRODUCT_ID NUMBER PRIMARY KEY, "
+                    + "ROW_VERSION NUMBER NOT NULL)");
+            st.execute("CREATE INDEX UMG.PRODUCTS_DELETED_VERSION_IX ON UMG.PRODUCTS_DELETED (ROW_VERSION)");
+            st.execute("CREATE TRIGGER UMG.PRODUCTS_DELETED_TRG AFTER DELETE ON UMG.PRODUCTS FOR EACH ROW "
+                    + "CALL '" + DeletedProductsTrigger.class.getName() + "'");
+            st.execute("CREATE SEQUENCE UMG.PRODUCTS_SEQ START WITH " + (productos + 1) + " INCREMENT BY 1000");
+
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO UMG.PRODUCTS (product_id, name, price, active) VALUES (?, ?, ?, ?)")) {
+                for (int id = 1; id <= productos; id++) {
+                    ps.setInt(1, id);
+                    ps.setString(2, "Producto " + id);
+                    ps.setFloat(3, (id % 1000) + 0.99f);
+                    ps.setString(4, id % 7 == 0 ? "N" : "Y");
+                    ps.addBatch();
+                    if (id % 1000 == 0) {
+                        ps.executeBatch();
+                    }
+                }
+                ps.executeBatch();
+            }
+            conn.commit();
+        }
+
+        ConnectionPool pool = new ConnectionPool(URL, USER, PASSWORD, 1, 4, 60_000, 5_000);
+        pool.setTamanoCacheSentencias(tamanoCacheSentencias);
+        ConnectionPool.configurar(pool);
+        return pool;
+    }
+
+    /**
+     * Cierra el pool global y elimina los datos de la base embebida
+     * @throws SQLException si no se pudo limpiar la base de datos
+     */
+    public static void detener() throws SQLException {
+        ConnectionPool.getInstance().cerrar();
+        try (Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
+             Statement st = conn.createStatement()) {
+            st.execute("DROP SCHEMA IF EXISTS UMG CASCADE");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package edu.gt.rodrigocardenas.umg.bench;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import org.h2.api.Trigger;
+
+/**
+ * Equivalente en H2 del trigger UMG.PRODUCTS_DELETED_TRG de Oracle: registra el
+ * ID de cada producto eliminado con una versión nueva
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public class DeletedProductsTrigger implements Trigger {
+
+    private static final String SQL_REGISTRAR = "MERGE INTO UMG.PRODUCTS_DELETED (PRODUCT_ID, ROW_VERSION) "
+            + "KEY (PRODUCT_ID) VALUES (?, NEXT VALUE FOR UMG.PRODUCTS_VERSION_SEQ)";
+
+    @Override
+    public void init(Connection conn, String esquema, String trigger, String tabla,
+                     boolean antes, int tipo) {
+    }
+
+    @Override
+    public void fire(Connection conn, Object[] filaAnterior, Object[] filaNueva) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(SQL_REGISTRAR)) {
+            ps.setObject(1, filaAnterior[0]);
+            ps.executeUpdate();
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void remove() {
+    }
+}
@@ -0,0 +1,128 @@
+package edu.gt.rodrigocardenas.umg.bench;
+
+import edu.gt.rodrigocardenas.umg.models.Product;
+import edu.gt.rodrigocardenas.umg.utils.CambiosProductos;
+import edu.gt.rodrigocardenas.umg.utils.ProductManager;
+import edu.gt.rodrigocardenas.umg.utils.UIConstants;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rendimiento de las operaciones públicas de ProductManager sobre la base H2 en
+ * memoria. Reporta operaciones por segundo (Throughput) y la distribución de
+ * latencias con sus percentiles p50/p99 (SampleTime).
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductManagerBenchmark {
+
+    @Param({"1000", "100000"})
+    public int productos;
+
+    // false: cada lectura del catálogo o búsqueda va a la base de datos
+    @Param({"true", "false"})
+    public boolean cache;
+
+    private String busqueda;
+
+    @Setup(Level.Trial)
+    public void iniciar() throws SQLException {
+        BenchmarkDatabase.iniciar(productos, UIConstants.DB_STATEMENT_CACHE_SIZE);
+        busqueda = String.valueOf(productos / 3);
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() throws SQLException {
+        BenchmarkDatabase.detener();
+    }
+
+    @Setup(Level.Invocation)
+    public void prepararInvocacion() {
+        if (!cache) {
+            ProductManager.invalidarCache();
+        }
+    }
+
+    @Benchmark
+    public List<Product> obtenerTodosLosProductos() {
+        return ProductManager.obtenerTodosLosProductos();
+    }
+
+    /**
+     * Refresco incremental: relee solo las últimas versiones (DB_DELTA_OVERLAP),
+     * para comparar con obtenerTodosLosProductos sin caché
+     */
+    @Benchmark
+    public CambiosProductos obtenerCambiosDesde() {
+        return ProductManager.obtenerCambiosDesde(ProductManager.obtenerTokenCambios());
+    }
+
+    @Benchmark
+    public List<Product> buscarProductos() {
+        return ProductManager.buscarProductos(busqueda);
+    }
+
+    @Benchmark
+    public boolean existeProducto() {
+        return ProductManager.existeProducto(idExistente());
+    }
+
+    @Benchmark
+    public int obtenerSiguienteId() {
+        return ProductManager.obtenerSiguienteId();
+    }
+
+    @Benchmark
+    public boolean insertarProducto() {
+        return ProductManager.insertarProducto(new Product(ProductManager.obtenerSiguienteId(), "Producto nuevo", 1.0f, "Y"));
+    }
+
+    @Benchmark
+    public boolean actualizarProducto() {
+        int id = idExistente();
+        return ProductManager.actualizarProducto(new Product(id, "Producto " + id, 10.5f, "Y"));
+    }
+
+    /**
+     * Cada invocación elimina un producto recién insertado para no vaciar el catálogo
+     */
+    @State(Scope.Thread)
+    public static class ProductoTemporal {
+        int id;
+
+        @Setup(Level.Invocation)
+        public void insertar() {
+            id = ProductManager.obtenerSiguienteId();
+            ProductManager.insertarProducto(new Product(id, "Producto temporal", 1.0f, "Y"));
+        }
+    }
+
+    @Benchmark
+    public boolean eliminarProducto(ProductoTemporal temporal) {
+        return ProductManager.eliminarProducto(temporal.id);
+    }
+
+    private int idExistente() {
+        return ThreadLocalRandom.current().nextInt(1, productos + 1);
+    }
+}
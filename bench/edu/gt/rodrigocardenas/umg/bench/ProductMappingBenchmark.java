@@ -0,0 +1,84 @@
+package edu.gt.rodrigocardenas.umg.bench;
+
+import edu.gt.rodrigocardenas.umg.models.Product;
+import edu.gt.rodrigocardenas.umg.utils.ConnectionPool;
+import edu.gt.rodrigocardenas.umg.utils.ProductManager;
+import edu.gt.rodrigocardenas.umg.utils.UIConstants;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Tiempo y asignaciones para materializar el catálogo completo. Compara la lectura
+ * anterior (SELECT *, columnas por nombre y constructor con validaciones) con la
+ * actual de ProductManager (columnas proyectadas, por posición y sin validaciones).
+ * Ejecutar con -prof gc para ver los bytes asignados por fila.
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProductMappingBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int productos;
+
+    @Setup(Level.Trial)
+    public void iniciar() throws SQLException {
+        BenchmarkDatabase.iniciar(productos, UIConstants.DB_STATEMENT_CACHE_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() throws SQLException {
+        BenchmarkDatabase.detener();
+    }
+
+    @Benchmark
+    public int porNombreConValidacion(Blackhole bh) throws SQLException {
+        int filas = 0;
+        try (Connection conn = ConnectionPool.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT * FROM UMG.PRODUCTS ORDER BY PRODUCT_ID")) {
+            ps.setFetchSize(UIConstants.DB_FETCH_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    bh.consume(new Product(rs.getInt("PRODUCT_ID"), rs.getString("NAME"),
+                            rs.getFloat("PRICE"), rs.getString("ACTIVE")));
+                    filas++;
+                }
+            }
+        }
+        return filas;
+    }
+
+    @Benchmark
+    public int porPosicionSinValidacion(Blackhole bh) {
+        int[] filas = {0};
+        try (Stream<Product> stream = ProductManager.streamProductos()) {
+            stream.forEach(producto -> {
+                bh.consume(producto);
+                filas[0]++;
+            });
+        }
+        return filas[0];
+    }
+}
@@ -0,0 +1,70 @@
+package edu.gt.rodrigocardenas.umg.bench;
+
+import edu.gt.rodrigocardenas.umg.models.Product;
+import edu.gt.rodrigocardenas.umg.utils.ProductTableModel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Costo de cargar el modelo de la tabla y de pintar una pantalla de filas
+ * (30 filas visibles por 5 columnas), sin base de datos
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductTableModelBenchmark {
+
+    private static final int FILAS_VISIBLES = 30;
+
+    @Param({"1000", "100000", "1000000"})
+    public int productos;
+
+    private List<Product> catalogo;
+    private ProductTableModel modelo;
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        catalogo = new ArrayList<>(productos);
+        for (int id = 1; id <= productos; id++) {
+            catalogo.add(Product.desdeBaseDeDatos(id, "Producto " + id, (id % 1000) + 0.99f, id % 7 == 0 ? "N" : "Y"));
+        }
+        modelo = new ProductTableModel();
+        modelo.setProductos(catalogo);
+    }
+
+    @Benchmark
+    public ProductTableModel setProductos() {
+        ProductTableModel nuevo = new ProductTableModel();
+        nuevo.setProductos(catalogo);
+        return nuevo;
+    }
+
+    @Benchmark
+    public void getValueAt(Blackhole bh) {
+        int primera = ThreadLocalRandom.current().nextInt(Math.max(1, productos - FILAS_VISIBLES));
+        for (int fila = primera; fila < primera + FILAS_VISIBLES && fila < productos; fila++) {
+            for (int columna = 0; columna < modelo.getColumnCount(); columna++) {
+                bh.consume(modelo.getValueAt(fila, columna));
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package edu.gt.rodrigocardenas.umg.bench;
+
+import edu.gt.rodrigocardenas.umg.models.Product;
+import edu.gt.rodrigocardenas.umg.utils.ProductManager;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Latencia por operación de ProductManager con y sin caché de sentencias preparadas.
+ * Las lecturas vacían antes la caché de productos para que siempre lleguen a la
+ * base de datos.
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatementCacheBenchmark {
+
+    @Param({"0", "20"})
+    public int tamanoCache;
+
+    @Param({"10000"})
+    public int productos;
+
+    private int siguienteId;
+
+    @Setup(Level.Trial)
+    public void iniciar() throws SQLException {
+        BenchmarkDatabase.iniciar(productos, tamanoCache);
+        siguienteId = productos + 1;
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() throws SQLException {
+        BenchmarkDatabase.detener();
+    }
+
+    /**
+     * Vacía la caché de productos antes de cada invocación; si no, ProductCache
+     * respondería sin usar la sentencia preparada
+     */
+    @State(Scope.Thread)
+    public static class SinCacheDeProductos {
+        @Setup(Level.Invocation)
+        public void vaciar() {
+            ProductManager.invalidarCache();
+        }
+    }
+
+    @Benchmark
+    public boolean existeProducto(SinCacheDeProductos sinCache) {
+        return ProductManager.existeProducto(productos / 2);
+    }
+
+    @Benchmark
+    public boolean actualizarProducto() {
+        return ProductManager.actualizarProducto(new Product(productos / 2, "Producto actualizado", 10.5f, "Y"));
+    }
+
+    @Benchmark
+    public boolean insertarYEliminarProducto() {
+        int id = siguienteId++;
+        ProductManager.insertarProducto(new Product(id, "Producto nuevo", 1.0f, "Y"));
+        return ProductManager.eliminarProducto(id);
+    }
+}
@@ -0,0 +1,60 @@
+package edu.gt.rodrigocardenas.umg.bench;
+
+import edu.gt.rodrigocardenas.umg.models.Product;
+import edu.gt.rodrigocardenas.umg.utils.ProductColumnStore;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Memoria retenida por fila de la tabla: lista de objetos Product frente al
+ * almacén por columnas. No usa JMH porque mide memoria retenida y no tiempo.
+ * Uso: java -cp build/classes:build/bench/classes edu.gt.rodrigocardenas.umg.bench.TableMemoryBenchmark [filas]
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public final class TableMemoryBenchmark {
+
+    private TableMemoryBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int filas = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        long base = memoriaUsada();
+        List<Product> lista = crearProductos(filas);
+        long porFilaLista = (memoriaUsada() - base) / filas;
+
+        ProductColumnStore almacen = ProductColumnStore.desde(lista);
+        lista = null;
+        long porFilaAlmacen = (memoriaUsada() - base) / filas;
+
+        System.out.printf("Filas: %d%n", filas);
+        System.out.printf("List<Product>:      %d bytes por fila%n", porFilaLista);
+        System.out.printf("ProductColumnStore: %d bytes por fila%n", porFilaAlmacen);
+        // Mantener el almacén alcanzable hasta después de la medición
+        System.out.println(almacen.getTamano() == filas ? "" : "?");
+    }
+
+    /**
+     * Productos con la misma forma que los leídos de la base de datos
+     */
+    private static List<Product> crearProductos(int filas) {
+        List<Product> productos = new ArrayList<>(filas);
+        for (int id = 1; id <= filas; id++) {
+            productos.add(Product.desdeBaseDeDatos(id, "Producto " + id, (id % 1000) + 0.99f, id % 7 == 0 ? "N" : "Y"));
+        }
+        return productos;
+    }
+
+    private static long memoriaUsada() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,80 @@
+package edu.gt.rodrigocardenas.umg.bench;
+
+import edu.gt.rodrigocardenas.umg.models.Product;
+import edu.gt.rodrigocardenas.umg.utils.ProductManager;
+import edu.gt.rodrigocardenas.umg.utils.ProductTransaction;
+import edu.gt.rodrigocardenas.umg.utils.UIConstants;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Filas actualizadas por segundo en cambios de varias filas: cada actualización
+ * con su propio commit frente a todas en una sola ProductTransaction
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionBenchmark {
+
+    private static final int FILAS = 50;
+
+    @Param({"10000"})
+    public int productos;
+
+    private int primerId;
+
+    @Setup(Level.Trial)
+    public void iniciar() throws SQLException {
+        BenchmarkDatabase.iniciar(productos, UIConstants.DB_STATEMENT_CACHE_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void detener() throws SQLException {
+        BenchmarkDatabase.detener();
+    }
+
+    @Setup(Level.Invocation)
+    public void elegirFilas() {
+        primerId = 1 + (primerId + FILAS) % (productos - FILAS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILAS)
+    public int autocommit() {
+        int actualizados = 0;
+        for (int i = 0; i < FILAS; i++) {
+            if (ProductManager.actualizarProducto(producto(primerId + i))) {
+                actualizados++;
+            }
+        }
+        return actualizados;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(FILAS)
+    public int unaTransaccion() {
+        return ProductTransaction.ejecutar(tx -> autocommit());
+    }
+
+    private static Product producto(int id) {
+        return new Product(id, "Producto " + id, 10.5f, "Y");
+    }
+}
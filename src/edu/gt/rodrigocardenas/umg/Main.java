@@ -1,16 +1,14 @@
 package edu.gt.rodrigocardenas.umg;
 
 import edu.gt.rodrigocardenas.umg.gui.frames.ProductFrame;
+import edu.gt.rodrigocardenas.umg.utils.ConnectionPool;
+import edu.gt.rodrigocardenas.umg.utils.StartupTasks;
 import edu.gt.rodrigocardenas.umg.utils.UIConstants;
+import edu.gt.rodrigocardenas.umg.utils.WriteBehindQueue;
 
 import javax.swing.*;
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.SQLException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.sql.Statement;
-import java.sql.ResultSet;
 
 /**
  * Clase principal para el sistema de gestión de productos con Oracle Database
@@ -21,76 +19,83 @@ public class Main {
     private static final Logger logger = Logger.getLogger(Main.class.getName());
 
     public static void main(String[] args) {
+        // Las tareas de base de datos corren mientras se construye la interfaz
+        StartupTasks arranque = StartupTasks.iniciar();
+        
         // Configurar Look and Feel del sistema
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
         } catch (ClassNotFoundException | InstantiationException | IllegalAccessException | UnsupportedLookAndFeelException e) {
             logger.log(Level.WARNING, "No se pudo establecer el Look and Feel del sistema", e);
         }
+        arranque.marcar("look and feel");
         
-        // Verificar conexión a la base de datos
-        if (!verificarConexionDB()) {
-            JOptionPane.showMessageDialog(null, 
-                "No se puede conectar a la base de datos Oracle.\n" +
-                "Por favor verifique que:\n" +
-                "1. Oracle XE esté ejecutándose\n" +
-                "2. Los datos de conexión sean correctos\n" +
-                "3. La tabla UMG.PRODUCTS exista",
-                "Error de Conexión", 
-                JOptionPane.ERROR_MESSAGE);
-            return;
-        }
+        // Al salir: escribir las ediciones diferidas y después cerrar el pool de conexiones
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            WriteBehindQueue.getInstance().cerrar(UIConstants.WRITE_BEHIND_EXIT_TIMEOUT_MS);
+            ConnectionPool.getInstance().cerrar();
+        }));
         
-        // Ejecutar la aplicación GUI
+        // Ejecutar la aplicación GUI; la tabla se llena cuando llegan los datos
         SwingUtilities.invokeLater(new Runnable() {
             @Override
             public void run() {
+                ProductFrame frame;
                 try {
-                    new ProductFrame().setVisible(true);
+                    frame = new ProductFrame(arranque);
+                    frame.setVisible(true);
+                    arranque.marcar("interfaz construida");
                 } catch (Exception e) {
                     logger.log(Level.SEVERE, "Error al iniciar la aplicación", e);
                     JOptionPane.showMessageDialog(null, 
                         "Error al iniciar la aplicación: " + e.getMessage(),
                         "Error", 
                         JOptionPane.ERROR_MESSAGE);
+                    return;
                 }
+                
+                // Verificar conexión a la base de datos; sin conexión se sigue con la copia local si la hay
+                arranque.getConexionVerificada().thenAcceptBoth(arranque.getInstantanea(), (conectado, copia) -> {
+                    if (!conectado) {
+                        SwingUtilities.invokeLater(() -> {
+                            if (frame.continuarSinConexion()) {
+                                mostrarAvisoSinConexion(frame);
+                            } else {
+                                mostrarErrorConexion(frame);
+                            }
+                        });
+                    }
+                });
             }
         });
     }
     
     /**
-     * Verifica la conexión a la base de datos
-     * @return true si la conexión es exitosa, false en caso contrario
+     * Avisa que se muestra la copia local porque no hay conexión
      */
-    private static boolean verificarConexionDB() {
-        Connection conn = null;
-        try {
-            conn = DriverManager.getConnection(UIConstants.DB_URL, UIConstants.DB_USER, UIConstants.DB_PASSWORD);
-            
-            // Verificar que la tabla existe
-            String sql = "SELECT COUNT(*) FROM UMG.PRODUCTS";
-            Statement st = conn.createStatement();
-            ResultSet rs = st.executeQuery(sql);
-            
-            boolean tablaExiste = rs.next();
-            
-            rs.close();
-            st.close();
-            
-            return tablaExiste;
-            
-        } catch (SQLException ex) {
-            logger.log(Level.SEVERE, "Error al verificar conexión a la base de datos", ex);
-            return false;
-        } finally {
-            if (conn != null) {
-                try {
-                    conn.close();
-                } catch (SQLException ex) {
-                    logger.log(Level.WARNING, "Error al cerrar conexión", ex);
-                }
-            }
-        }
+    private static void mostrarAvisoSinConexion(ProductFrame frame) {
+        JOptionPane.showMessageDialog(frame, 
+            "No se puede conectar a la base de datos Oracle.\n" +
+            "Se muestra la copia local del catálogo; los cambios no se\n" +
+            "podrán guardar hasta recuperar la conexión (botón Refrescar).",
+            "Sin Conexión", 
+            JOptionPane.WARNING_MESSAGE);
+    }
+    
+    /**
+     * Cierra la ventana y explica por qué no se pudo conectar
+     */
+    private static void mostrarErrorConexion(ProductFrame frame) {
+        frame.dispose();
+        JOptionPane.showMessageDialog(null, 
+            "No se puede conectar a la base de datos Oracle.\n" +
+            "Por favor verifique que:\n" +
+            "1. Oracle XE esté ejecutándose\n" +
+            "2. Los datos de conexión sean correctos\n" +
+            "3. La tabla UMG.PRODUCTS exista",
+            "Error de Conexión", 
+            JOptionPane.ERROR_MESSAGE);
+        System.exit(1);
     }
 
 }
@@ -1,12 +1,23 @@
 package edu.gt.rodrigocardenas.umg.gui.frames;
 
 import edu.gt.rodrigocardenas.umg.models.Product;
+import edu.gt.rodrigocardenas.umg.utils.BackgroundTaskRunner;
+import edu.gt.rodrigocardenas.umg.utils.CatalogSnapshot;
+import edu.gt.rodrigocardenas.umg.utils.ProductColumnStore;
+import edu.gt.rodrigocardenas.umg.utils.ProductExporter;
+import edu.gt.rodrigocardenas.umg.utils.ProductImporter;
 import edu.gt.rodrigocardenas.umg.utils.ProductManager;
+import edu.gt.rodrigocardenas.umg.utils.ProductSearchIndex;
+import edu.gt.rodrigocardenas.umg.utils.ResultadoLote.EstadoFila;
 import edu.gt.rodrigocardenas.umg.utils.ProductTableModel;
+import edu.gt.rodrigocardenas.umg.utils.StartupTasks;
+import edu.gt.rodrigocardenas.umg.utils.TiempoAgotadoException;
 import edu.gt.rodrigocardenas.umg.utils.UIConstants;
+import edu.gt.rodrigocardenas.umg.utils.WriteBehindQueue;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.table.TableRowSorter;
 import java.awt.*;
@@ -14,7 +25,14 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.nio.file.Path;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Frame principal para la gestión de productos con Oracle Database
@@ -22,6 +40,8 @@ import java.util.List;
  */
 public class ProductFrame extends JFrame {
 
+    private static final Logger logger = Logger.getLogger(ProductFrame.class.getName());
+
     // Componentes principales
     private JPanel mainPanel;
     private JPanel headerPanel;
@@ -39,6 +59,13 @@ public class ProductFrame extends JFrame {
     
     // Campo de búsqueda
     private JTextField searchField;
+    private JLabel searchStatusLabel;
+    
+    // Búsqueda mientras se escribe
+    private Timer busquedaTimer;
+    private String ultimoTermino = null;          // Término en minúsculas de las filas de la tabla
+    private long tokenTabla = -1;                 // Token de cambios de las filas de la tabla
+    private long ultimaTeclaNanos = 0;
     
     // Labels de error
     private JLabel idErrorLabel;
@@ -52,20 +79,46 @@ public class ProductFrame extends JFrame {
     private JButton limpiarButton;
     private JButton buscarButton;
     private JButton refrescarButton;
+    private JButton importarButton;
+    private JButton exportarButton;
+    private JLabel importarStatusLabel;
     
     // Tabla
     private JTable productosTable;
     private ProductTableModel tableModel;
     private JScrollPane tableScrollPane;
+    private JProgressBar progressBar;
+    
+    // Operaciones de base de datos fuera del EDT
+    private final BackgroundTaskRunner tareas = new BackgroundTaskRunner(UIConstants.UI_WORKER_THREADS);
+    
+    // Actualizaciones encoladas (null si la escritura diferida está desactivada)
+    private final WriteBehindQueue escrituraDiferida = UIConstants.WRITE_BEHIND_ENABLED
+            ? WriteBehindQueue.getInstance() : null;
+    
+    // Tareas del arranque (null si el frame no se abrió desde Main)
+    private final StartupTasks arranque;
+    private CatalogSnapshot instantanea = null;   // Copia local mostrada al abrir, si la hubo
     
     // Estado de la aplicación
     private boolean modoEdicion = false;
+    private boolean cerrando = false;
     private Product productoSeleccionado = null;
 
     /**
      * Constructor principal
      */
     public ProductFrame() {
+        this(null);
+    }
+
+    /**
+     * Constructor usado en el arranque: la tabla se llena con los datos que las
+     * tareas del arranque cargan mientras se construye la interfaz
+     * @param arranque Tareas de base de datos del arranque, o null para cargar la tabla directamente
+     */
+    public ProductFrame(StartupTasks arranque) {
+        this.arranque = arranque;
         initComponents();
         setupModernInterface();
     }
@@ -90,9 +143,10 @@ public class ProductFrame extends JFrame {
         layoutModernComponents();
         setupEventHandlers();
         setupTable();
+        tareas.setIndicadorOcupado(this::mostrarOcupado);
         
         // Cargar datos iniciales
-        refrescarTabla();
+        cargarDatosIniciales();
         
         // Hacer el frame visible
         setVisible(true);
@@ -296,8 +350,14 @@ public class ProductFrame extends JFrame {
         buscarButton = createStyledButton(UIConstants.SEARCH_BUTTON_TEXT, UIConstants.PRIMARY_COLOR);
         inputButtonPanel.add(buscarButton, BorderLayout.EAST);
         
+        // Resultados y latencia de la última búsqueda
+        searchStatusLabel = new JLabel(" ");
+        searchStatusLabel.setFont(UIConstants.SMALL_FONT);
+        searchStatusLabel.setForeground(UIConstants.SECONDARY_COLOR);
+        
         panel.add(labelPanel, BorderLayout.NORTH);
         panel.add(inputButtonPanel, BorderLayout.CENTER);
+        panel.add(searchStatusLabel, BorderLayout.SOUTH);
         
         return panel;
     }
@@ -318,7 +378,18 @@ public class ProductFrame extends JFrame {
         JLabel tableTitle = new JLabel(UIConstants.PRODUCTS_TABLE_LABEL);
         tableTitle.setFont(UIConstants.HEADER_FONT);
         tableTitle.setForeground(UIConstants.PRIMARY_COLOR);
-        panel.add(tableTitle, BorderLayout.NORTH);
+        
+        // Indicador de carga mientras hay operaciones en segundo plano
+        progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setPreferredSize(new Dimension(120, 12));
+        progressBar.setVisible(false);
+        
+        JPanel titlePanel = new JPanel(new BorderLayout());
+        titlePanel.setBackground(Color.WHITE);
+        titlePanel.add(tableTitle, BorderLayout.WEST);
+        titlePanel.add(progressBar, BorderLayout.EAST);
+        panel.add(titlePanel, BorderLayout.NORTH);
         
         // Crear tabla
         tableModel = new ProductTableModel();
@@ -400,11 +471,20 @@ public class ProductFrame extends JFrame {
         actualizarButton = createStyledButton(UIConstants.UPDATE_BUTTON_TEXT, UIConstants.WARNING_COLOR);
         limpiarButton = createStyledButton(UIConstants.CLEAR_BUTTON_TEXT, UIConstants.SECONDARY_COLOR);
         refrescarButton = createStyledButton(UIConstants.REFRESH_BUTTON_TEXT, UIConstants.PRIMARY_COLOR);
+        importarButton = createStyledButton(UIConstants.IMPORT_BUTTON_TEXT, UIConstants.SECONDARY_COLOR);
+        exportarButton = createStyledButton(UIConstants.EXPORT_BUTTON_TEXT, UIConstants.SECONDARY_COLOR);
+        
+        importarStatusLabel = new JLabel(" ");
+        importarStatusLabel.setFont(UIConstants.SMALL_FONT);
+        importarStatusLabel.setForeground(UIConstants.SECONDARY_COLOR);
         
         panel.add(agregarButton);
         panel.add(actualizarButton);
         panel.add(limpiarButton);
         panel.add(refrescarButton);
+        panel.add(importarButton);
+        panel.add(exportarButton);
+        panel.add(importarStatusLabel);
         
         // Inicialmente deshabilitar el botón actualizar
         actualizarButton.setEnabled(false);
@@ -458,6 +538,21 @@ public class ProductFrame extends JFrame {
      * Configura los manejadores de eventos
      */
     private void setupEventHandlers() {
+        if (escrituraDiferida != null) {
+            // Los fallos llegan desde el hilo de escritura
+            escrituraDiferida.setOyenteFallos((productos, motivo) ->
+                    SwingUtilities.invokeLater(() -> mostrarEscrituraFallida(productos, motivo)));
+            
+            // Escribir las ediciones pendientes antes de salir; la ventana se cierra al terminar
+            setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+            addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosing(WindowEvent e) {
+                    guardarPendientesAlSalir();
+                }
+            });
+        }
+        
         // Botón agregar producto
         agregarButton.addActionListener(new ActionListener() {
             @Override
@@ -490,21 +585,57 @@ public class ProductFrame extends JFrame {
             }
         });
         
-        // Botón refrescar
+        // Botón refrescar (lee solo los cambios si se conoce el token de la tabla)
         refrescarButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                refrescarTabla();
+                actualizarCambios();
+            }
+        });
+        
+        // Botón importar productos desde un archivo CSV
+        importarButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                importarProductos();
             }
         });
         
-        // Campo de búsqueda con búsqueda en tiempo real
+        // Botón exportar los productos de la búsqueda actual
+        exportarButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                exportarProductos();
+            }
+        });
+        
+        // Campo de búsqueda: Enter busca de inmediato
         searchField.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
                 buscarProductos();
             }
         });
+        
+        // Búsqueda en tiempo real tras una pausa al escribir
+        busquedaTimer = new Timer(UIConstants.SEARCH_DEBOUNCE_MS, e -> buscarProductos());
+        busquedaTimer.setRepeats(false);
+        searchField.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            @Override
+            public void insertUpdate(javax.swing.event.DocumentEvent e) {
+                programarBusqueda();
+            }
+            
+            @Override
+            public void removeUpdate(javax.swing.event.DocumentEvent e) {
+                programarBusqueda();
+            }
+            
+            @Override
+            public void changedUpdate(javax.swing.event.DocumentEvent e) {
+                // Cambios de atributos: el texto no cambia
+            }
+        });
     }
     
     /**
@@ -553,81 +684,93 @@ public class ProductFrame extends JFrame {
      * Agrega un nuevo producto
      */
     private void agregarProducto() {
+        Product producto;
         try {
             // Validar campos
             if (!validarCampos()) {
                 return;
             }
             
-            int productId = Integer.parseInt(idField.getText());
-            
-            // Verificar que no exista un producto con el mismo ID
-            if (ProductManager.existeProducto(productId)) {
-                mostrarMensaje("Ya existe un producto con el ID " + productId, "Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-            
             // Crear producto
-            Product producto = new Product(
-                productId,
+            producto = new Product(
+                Integer.parseInt(idField.getText()),
                 nombreField.getText(),
                 Float.parseFloat(precioField.getText()),
                 "Activo".equals(estadoComboBox.getSelectedItem()) ? "Y" : "N"
             );
-            
-            // Agregar a la base de datos
-            if (ProductManager.insertarProducto(producto)) {
+        } catch (IllegalArgumentException e) {
+            mostrarMensaje(e.getMessage(), "Error de validación", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        // Insertar solo si el ID no existe, en un solo viaje y en segundo plano
+        agregarButton.setEnabled(false);
+        tareas.ejecutar(null, () -> ProductManager.insertarSiNoExiste(producto), estado -> {
+            agregarButton.setEnabled(!modoEdicion);
+            if (estado == EstadoFila.INSERTADO) {
                 limpiarFormulario();
-                refrescarTabla();
+                aplicarEscritura(() -> aplicarEnTabla(producto));
                 mostrarMensaje(UIConstants.SUCCESS_MESSAGE, "Producto agregado exitosamente", JOptionPane.INFORMATION_MESSAGE);
             } else {
-                mostrarMensaje(UIConstants.ERROR_MESSAGE, "Error", JOptionPane.ERROR_MESSAGE);
+                mostrarMensaje("Ya existe un producto con el ID " + producto.getProduct_id(), "Error", JOptionPane.ERROR_MESSAGE);
             }
-            
-        } catch (IllegalArgumentException e) {
-            mostrarMensaje(e.getMessage(), "Error de validación", JOptionPane.ERROR_MESSAGE);
-        } catch (Exception e) {
-            mostrarMensaje(UIConstants.CONNECTION_ERROR, "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        }, error -> {
+            agregarButton.setEnabled(!modoEdicion);
+            mostrarError(error);
+        });
     }
     
     /**
      * Actualiza un producto existente
      */
     private void actualizarProducto() {
+        if (productoSeleccionado == null) {
+            mostrarMensaje("Por favor seleccione un producto de la tabla", "Error", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        Product producto;
         try {
-            if (productoSeleccionado == null) {
-                mostrarMensaje("Por favor seleccione un producto de la tabla", "Error", JOptionPane.ERROR_MESSAGE);
-                return;
-            }
-            
             // Validar campos (excepto ID ya que está deshabilitado)
             if (!validarCamposParaEdicion()) {
                 return;
             }
             
-            // Actualizar producto manteniendo el ID original
-            productoSeleccionado.setName(nombreField.getText());
-            productoSeleccionado.setPrice(Float.parseFloat(precioField.getText()));
-            productoSeleccionado.setActive("Activo".equals(estadoComboBox.getSelectedItem()) ? "Y" : "N");
-            
-            // Actualizar en la base de datos
-            if (ProductManager.actualizarProducto(productoSeleccionado)) {
+            // Copia con los nuevos valores manteniendo el ID original; la fila
+            // de la tabla no cambia hasta que la base de datos confirme
+            producto = new Product(productoSeleccionado);
+            producto.setName(nombreField.getText());
+            producto.setPrice(Float.parseFloat(precioField.getText()));
+            producto.setActive("Activo".equals(estadoComboBox.getSelectedItem()) ? "Y" : "N");
+        } catch (IllegalArgumentException e) {
+            mostrarMensaje(e.getMessage(), "Error de validación", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        
+        // Con escritura diferida la tabla cambia al momento y la edición se escribe en lote
+        if (escrituraDiferida != null) {
+            escrituraDiferida.encolar(producto);
+            limpiarFormulario();
+            aplicarEscritura(() -> aplicarEnTabla(producto));
+            searchStatusLabel.setText(String.format("%d cambios pendientes de guardar", escrituraDiferida.getPendientes()));
+            return;
+        }
+        
+        // Actualizar en la base de datos en segundo plano
+        actualizarButton.setEnabled(false);
+        tareas.ejecutar(null, () -> ProductManager.actualizarProducto(producto), actualizado -> {
+            if (actualizado) {
                 limpiarFormulario();
-                refrescarTabla();
+                aplicarEscritura(() -> aplicarEnTabla(producto));
                 mostrarMensaje(UIConstants.SUCCESS_MESSAGE, "Producto actualizado exitosamente", JOptionPane.INFORMATION_MESSAGE);
-                modoEdicion = false;
-                actualizarButton.setEnabled(false);
-                agregarButton.setEnabled(true);
             } else {
+                actualizarButton.setEnabled(modoEdicion);
                 mostrarMensaje(UIConstants.ERROR_MESSAGE, "Error", JOptionPane.ERROR_MESSAGE);
             }
-            
-        } catch (IllegalArgumentException e) {
-            mostrarMensaje(e.getMessage(), "Error de validación", JOptionPane.ERROR_MESSAGE);
-        } catch (Exception e) {
-            mostrarMensaje(UIConstants.CONNECTION_ERROR, "Error", JOptionPane.ERROR_MESSAGE);
-        }
+        }, error -> {
+            actualizarButton.setEnabled(modoEdicion);
+            mostrarError(error);
+        });
     }
     
     /**
@@ -762,27 +905,278 @@ public class ProductFrame extends JFrame {
     }
     
     /**
-     * Busca productos
+     * Reinicia la espera antes de buscar con el texto actual
+     */
+    private void programarBusqueda() {
+        ultimaTeclaNanos = System.nanoTime();
+        busquedaTimer.restart();
+    }
+    
+    /**
+     * Busca productos en segundo plano; una búsqueda nueva reemplaza a la anterior.
+     * Si el término contiene al de los últimos resultados, estos se filtran en
+     * memoria en lugar de consultar la base de datos.
      */
     private void buscarProductos() {
+        busquedaTimer.stop();
         String busqueda = searchField.getText().trim();
-        List<Product> resultados;
-        
-        if (busqueda.isEmpty()) {
-            resultados = ProductManager.obtenerTodosLosProductos();
-        } else {
-            resultados = ProductManager.buscarProductos(busqueda);
+        String termino = busqueda.toLowerCase(Locale.ROOT);
+        long inicio = ultimaTeclaNanos != 0 ? ultimaTeclaNanos : System.nanoTime();
+        ultimaTeclaNanos = 0;
+        
+        boolean refinar = ultimoTermino != null && !ultimoTermino.isEmpty() && termino.contains(ultimoTermino);
+        ProductColumnStore anteriores = refinar ? tableModel.copiarAlmacen() : null;
+        long tokenAnterior = tokenTabla;
+        List<Product> ediciones = edicionesSinConfirmar();
+        
+        // Las filas se convierten al formato por columnas fuera del EDT
+        tareas.ejecutar("consulta", () -> {
+            if (refinar) {
+                return new ResultadoConsulta(anteriores.filtrar(termino), tokenAnterior);
+            }
+            // El token se toma antes de leer para no perder cambios simultáneos
+            long token = ProductManager.obtenerTokenLectura();
+            return new ResultadoConsulta(ProductColumnStore.desde(busqueda.isEmpty()
+                    ? ProductManager.obtenerTodosLosProductos()
+                    : ProductManager.buscarProductos(busqueda)), token);
+        }, resultado -> {
+            ultimoTermino = termino;
+            tokenTabla = resultado.token;
+            tableModel.setProductos(resultado.productos);
+            superponerEdiciones(ediciones);
+            reportarLatencia(busqueda, resultado.productos.getTamano(), inicio, refinar);
+            if (busqueda.isEmpty() && !refinar) {
+                guardarInstantanea();
+            }
+            if (arranque != null) {
+                arranque.marcar("primera fila visible");
+                arranque.terminar("catálogo completo");
+            }
+        }, this::mostrarError);
+    }
+    
+    /**
+     * Aplica a la tabla solo los productos que cambiaron desde que se cargó. Si
+     * no se conoce el token de la tabla, o el campo de búsqueda no corresponde a
+     * las filas mostradas, la vuelve a cargar completa.
+     */
+    private void actualizarCambios() {
+        long token = tokenTabla;
+        String termino = ultimoTermino;
+        if (token < 0 || termino == null || !searchField.getText().trim().isEmpty() || !termino.isEmpty()) {
+            ProductManager.invalidarCache();
+            refrescarTabla();
+            return;
         }
-        
-        tableModel.setProductos(resultados);
+        long inicio = System.nanoTime();
+        List<Product> ediciones = edicionesSinConfirmar();
+        tareas.ejecutar("consulta", () -> ProductManager.obtenerCambiosDesde(token), cambios -> {
+            tableModel.aplicarCambios(cambios, termino);
+            superponerEdiciones(ediciones);
+            tokenTabla = cambios.getToken();
+            double ms = (System.nanoTime() - inicio) / 1_000_000.0;
+            searchStatusLabel.setText(String.format("%d cambios aplicados en %.1f ms", cambios.getTotal(), ms));
+            guardarInstantanea();
+        }, error -> {
+            // Sin cambios incrementales se recarga todo
+            logger.log(Level.WARNING, "No se pudieron obtener los cambios; se recarga la tabla", error);
+            tokenTabla = -1;
+            ProductManager.invalidarCache();
+            refrescarTabla();
+        });
+    }
+    
+    /**
+     * Muestra y registra el tiempo entre la última tecla y la actualización de la tabla
+     */
+    private void reportarLatencia(String busqueda, int resultados, long inicioNanos, boolean refinado) {
+        double ms = (System.nanoTime() - inicioNanos) / 1_000_000.0;
+        String origen = refinado ? "refinado local" : "consulta";
+        searchStatusLabel.setText(String.format("%d resultados en %.1f ms (%s)", resultados, ms, origen));
+        logger.fine(String.format("Búsqueda '%s': %d resultados en %.1f ms (%s)", busqueda, resultados, ms, origen));
+    }
+    
+    /**
+     * Carga la tabla al abrir la ventana. En el arranque muestra la copia local del
+     * catálogo o, si no hay, la primera página en cuanto llega. Cuando la conexión
+     * está verificada pone al día la copia o pide el catálogo completo; si no hay
+     * conexión, Main decide si se sigue con la copia local o se cierra la ventana.
+     */
+    private void cargarDatosIniciales() {
+        if (arranque == null) {
+            refrescarTabla();
+            return;
+        }
+        arranque.getInstantanea().thenAccept(copia -> {
+            if (copia != null) {
+                SwingUtilities.invokeLater(() -> mostrarInstantanea(copia));
+            }
+        });
+        arranque.getPrimeraPagina().whenComplete((pagina, error) -> {
+            if (error != null) {
+                logger.log(Level.FINE, "No se pudo leer la primera página en el arranque", error);
+                return;
+            }
+            SwingUtilities.invokeLater(() -> {
+                // Si el catálogo completo ya llegó, la página se descarta
+                if (ultimoTermino == null) {
+                    tableModel.setProductos(ProductColumnStore.desde(pagina));
+                    arranque.marcar("primera fila visible");
+                }
+            });
+        });
+        arranque.getConexionVerificada().thenAcceptBoth(arranque.getInstantanea(), (conectado, copia) -> {
+            if (conectado) {
+                SwingUtilities.invokeLater(() -> {
+                    if (copia != null && mostrarInstantanea(copia)) {
+                        reconciliarInstantanea();
+                    } else if (ultimoTermino == null) {
+                        refrescarTabla();
+                    }
+                });
+            }
+        });
+    }
+    
+    /**
+     * Muestra la copia local del catálogo mientras no se haya cargado otro resultado
+     * @param copia Copia leída en el arranque
+     * @return true si la tabla muestra la copia
+     */
+    private boolean mostrarInstantanea(CatalogSnapshot copia) {
+        if (instantanea == copia) {
+            // Sigue mostrando todo el catálogo, la copia o una versión más nueva
+            return "".equals(ultimoTermino);
+        }
+        if (instantanea != null || ultimoTermino != null) {
+            return false;
+        }
+        instantanea = copia;
+        tableModel.setProductos(copia.getProductos());
+        ultimoTermino = "";
+        // Una copia muy antigua se muestra, pero el siguiente refresco carga todo
+        tokenTabla = copia.isVigente() ? copia.getToken() : -1;
+        searchStatusLabel.setText(String.format("%d productos de la copia local del %tF %<tR",
+                copia.getProductos().getTamano(), copia.getCreadoMs()));
+        arranque.marcar("primera fila visible");
+        return true;
+    }
+    
+    /**
+     * Pone al día la copia local mostrada con los cambios desde su token. Si es
+     * muy antigua, o si la base de datos ya no reconoce su token, carga todo.
+     */
+    private void reconciliarInstantanea() {
+        long token = tokenTabla;
+        if (token < 0) {
+            refrescarTabla();
+            return;
+        }
+        long inicio = System.nanoTime();
+        List<Product> ediciones = edicionesSinConfirmar();
+        tareas.ejecutar("consulta", () -> {
+            // Un token mayor que el de la base de datos indica que la tabla se recreó
+            long actual = ProductManager.obtenerTokenCambios();
+            return actual < token ? null : ProductManager.obtenerCambiosDesde(token);
+        }, cambios -> {
+            if (cambios == null) {
+                logger.info("La copia local del catálogo no corresponde a la base de datos; se recarga la tabla");
+                refrescarTabla();
+                return;
+            }
+            tableModel.aplicarCambios(cambios, "");
+            superponerEdiciones(ediciones);
+            tokenTabla = cambios.getToken();
+            double ms = (System.nanoTime() - inicio) / 1_000_000.0;
+            searchStatusLabel.setText(String.format("Copia local al día: %d cambios aplicados en %.1f ms",
+                    cambios.getTotal(), ms));
+            guardarInstantanea();
+            arranque.terminar("catálogo completo");
+        }, error -> {
+            logger.log(Level.WARNING, "No se pudo poner al día la copia local; se recarga la tabla", error);
+            refrescarTabla();
+        });
+    }
+    
+    /**
+     * Mantiene abierta la ventana con la copia local cuando no hay conexión en el arranque
+     * @return true si la tabla muestra una copia local
+     */
+    public boolean continuarSinConexion() {
+        CatalogSnapshot copia = arranque != null ? arranque.getInstantanea().getNow(null) : null;
+        if (copia == null || !mostrarInstantanea(copia)) {
+            return false;
+        }
+        searchStatusLabel.setText(String.format("Sin conexión: copia local del %tF %<tR", copia.getCreadoMs()));
+        return true;
     }
     
     /**
-     * Refresca la tabla
+     * Guarda en segundo plano el catálogo mostrado como copia local para el
+     * siguiente arranque; solo debe llamarse cuando la tabla muestra todo el catálogo
+     */
+    private void guardarInstantanea() {
+        if (UIConstants.SNAPSHOT_ENABLED) {
+            new CatalogSnapshot(tableModel.copiarAlmacen(), tokenTabla, System.currentTimeMillis())
+                    .guardarEnSegundoPlano();
+        }
+    }
+    
+    /**
+     * Refresca la tabla en segundo plano con datos actuales de la base de datos
      */
     private void refrescarTabla() {
-        tableModel.refrescarTabla();
         searchField.setText("");
+        // Las filas actuales pueden no reflejar cambios hechos por otros usuarios
+        ultimoTermino = null;
+        tokenTabla = -1;
+        buscarProductos();
+    }
+    
+    /**
+     * Aplica en la tabla una escritura confirmada o diferida. Una consulta en curso
+     * pudo leer la base de datos antes de la escritura y la borraría de la tabla al
+     * llegar: su resultado se descarta y la consulta se repite.
+     * @param cambioEnTabla Cambio de la tabla que refleja la escritura
+     */
+    private void aplicarEscritura(Runnable cambioEnTabla) {
+        boolean consultaAnterior = tareas.descartar("consulta");
+        cambioEnTabla.run();
+        if (consultaAnterior && !tareas.isEnCurso("consulta")) {
+            buscarProductos();
+        }
+    }
+    
+    /**
+     * Refleja en la tabla un producto insertado o actualizado sin volver a
+     * consultar: solo cambia su fila, y la quita si ya no coincide con la búsqueda
+     */
+    private void aplicarEnTabla(Product producto) {
+        if (ultimoTermino == null) {
+            refrescarTabla();
+        } else if (ProductSearchIndex.coincide(producto, ultimoTermino)) {
+            tableModel.insertarProducto(producto);
+        } else {
+            tableModel.eliminarProducto(producto.getProduct_id());
+        }
+    }
+    
+    /**
+     * Ediciones diferidas que aún no están en la base de datos. Se toman al iniciar
+     * una consulta: esta pudo leer los valores anteriores aunque se escriban
+     * mientras tanto, y las que se hagan después reinician la consulta.
+     */
+    private List<Product> edicionesSinConfirmar() {
+        return escrituraDiferida != null ? escrituraDiferida.getSinConfirmar() : Collections.emptyList();
+    }
+    
+    /**
+     * Vuelve a aplicar en la tabla las ediciones diferidas sobre el resultado de una consulta
+     */
+    private void superponerEdiciones(List<Product> ediciones) {
+        for (Product producto : ediciones) {
+            aplicarEnTabla(producto);
+        }
     }
     
     /**
@@ -828,18 +1222,111 @@ public class ProductFrame extends JFrame {
             );
             
             if (confirmacion == 0) { // 0 = Sí, 1 = No
-                try {
-                    if (ProductManager.eliminarProducto(producto.getProduct_id())) {
-                        refrescarTabla();
+                int productId = producto.getProduct_id();
+                if (escrituraDiferida != null) {
+                    // Una edición pendiente ya no tiene sentido si el producto se elimina
+                    escrituraDiferida.descartar(productId);
+                }
+                tareas.ejecutar(null, () -> ProductManager.eliminarProducto(productId), eliminado -> {
+                    if (eliminado) {
+                        aplicarEscritura(() -> tableModel.eliminarProducto(productId));
                         mostrarMensaje("Producto eliminado exitosamente", "Éxito", JOptionPane.INFORMATION_MESSAGE);
                     } else {
                         mostrarMensaje("Error al eliminar el producto", "Error", JOptionPane.ERROR_MESSAGE);
                     }
-                } catch (Exception e) {
-                    mostrarMensaje(UIConstants.CONNECTION_ERROR, "Error", JOptionPane.ERROR_MESSAGE);
-                }
+                }, this::mostrarError);
+            }
+        }
+    }
+    
+    /**
+     * Importa productos desde un archivo CSV en segundo plano, mostrando el avance
+     * junto a los botones. Las filas rechazadas se guardan junto al archivo con
+     * la extensión .errores.csv.
+     */
+    private void importarProductos() {
+        JFileChooser selector = new JFileChooser();
+        selector.setFileFilter(new FileNameExtensionFilter("Archivos CSV", "csv"));
+        if (selector.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        
+        int opcion = JOptionPane.showOptionDialog(
+            this,
+            "¿Qué hacer con los productos cuyo ID ya existe?",
+            "Importar productos",
+            JOptionPane.YES_NO_CANCEL_OPTION,
+            JOptionPane.QUESTION_MESSAGE,
+            null,
+            new String[]{"Omitirlos", "Actualizarlos", "Cancelar"},
+            "Omitirlos"
+        );
+        if (opcion != 0 && opcion != 1) {
+            return;
+        }
+        
+        Path archivo = selector.getSelectedFile().toPath();
+        Path errores = archivo.resolveSibling(archivo.getFileName() + ".errores.csv");
+        ProductImporter importador = new ProductImporter(opcion == 0 ? ProductImporter.Modo.INSERTAR : ProductImporter.Modo.GUARDAR);
+        
+        importarButton.setEnabled(false);
+        importarStatusLabel.setText("Importando...");
+        tareas.ejecutar(null, 0, () -> importador.importar(archivo, errores, (procesadas, rechazadas) ->
+                SwingUtilities.invokeLater(() -> importarStatusLabel.setText(
+                        String.format("%,d filas procesadas, %,d rechazadas", procesadas, rechazadas)))
+        ), resumen -> {
+            importarButton.setEnabled(true);
+            importarStatusLabel.setText(String.format("%,.0f filas/s", resumen.getFilasPorSegundo()));
+            refrescarTabla();
+            String mensaje = "Importación terminada: " + resumen;
+            if (resumen.getRechazadas() > 0) {
+                mensaje += "\nFilas rechazadas en: " + errores;
             }
+            mostrarMensaje(mensaje, "Importar productos", JOptionPane.INFORMATION_MESSAGE);
+        }, error -> {
+            importarButton.setEnabled(true);
+            importarStatusLabel.setText(" ");
+            if (error instanceof java.io.IOException) {
+                mostrarMensaje("No se pudo leer el archivo: " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            } else {
+                mostrarError(error);
+            }
+        });
+    }
+    
+    /**
+     * Exporta en segundo plano los productos que coinciden con la búsqueda actual
+     * (todo el catálogo si está vacía). El formato se elige por la extensión:
+     * .csv o .jsonl, con .gz al final para comprimir.
+     */
+    private void exportarProductos() {
+        JFileChooser selector = new JFileChooser();
+        selector.addChoosableFileFilter(new FileNameExtensionFilter("CSV", "csv"));
+        selector.addChoosableFileFilter(new FileNameExtensionFilter("JSON Lines", "jsonl"));
+        selector.addChoosableFileFilter(new FileNameExtensionFilter("Comprimido (.csv.gz, .jsonl.gz)", "gz"));
+        selector.setSelectedFile(new java.io.File("productos.csv"));
+        if (selector.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
         }
+        
+        Path destino = selector.getSelectedFile().toPath();
+        String busqueda = searchField.getText().trim();
+        long inicio = System.nanoTime();
+        
+        exportarButton.setEnabled(false);
+        tareas.ejecutar(null, 0, () -> ProductExporter.paraArchivo(destino).exportar(destino, busqueda), filas -> {
+            exportarButton.setEnabled(true);
+            double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+            mostrarMensaje(String.format("%,d productos exportados a %s en %.1f s", filas, destino, segundos),
+                    "Exportar productos", JOptionPane.INFORMATION_MESSAGE);
+        }, error -> {
+            exportarButton.setEnabled(true);
+            if (error instanceof java.io.IOException) {
+                mostrarMensaje("No se pudo escribir el archivo: " + error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            } else {
+                mostrarError(error);
+            }
+        });
     }
     
     /**
@@ -849,6 +1336,85 @@ public class ProductFrame extends JFrame {
         JOptionPane.showMessageDialog(this, mensaje, titulo, tipo);
     }
     
+    /**
+     * Muestra el error de una operación en segundo plano
+     */
+    private void mostrarError(Throwable error) {
+        if (error instanceof IllegalArgumentException || error instanceof IllegalStateException) {
+            mostrarMensaje(error.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        } else if (error instanceof TiempoAgotadoException) {
+            mostrarMensaje(UIConstants.TIMEOUT_ERROR, "Error", JOptionPane.ERROR_MESSAGE);
+        } else {
+            mostrarMensaje(UIConstants.CONNECTION_ERROR, "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+    
+    /**
+     * Informa de ediciones diferidas que no se guardaron y recarga la tabla, que
+     * las mostraba como aplicadas
+     */
+    private void mostrarEscrituraFallida(List<Product> productos, String motivo) {
+        StringBuilder detalle = new StringBuilder();
+        for (int i = 0; i < productos.size() && i < 10; i++) {
+            detalle.append("\n- ").append(productos.get(i).getProduct_id())
+                   .append(": ").append(productos.get(i).getName());
+        }
+        if (productos.size() > 10) {
+            detalle.append("\n... y ").append(productos.size() - 10).append(" más");
+        }
+        mostrarMensaje("No se guardaron " + productos.size() + " cambios:\n" + motivo + detalle,
+                "Error", JOptionPane.ERROR_MESSAGE);
+        ProductManager.invalidarCache();
+        refrescarTabla();
+    }
+    
+    /**
+     * Escribe las ediciones diferidas antes de cerrar la aplicación y avisa si
+     * alguna no se pudo guardar. La espera, de hasta WRITE_BEHIND_EXIT_TIMEOUT_MS,
+     * ocurre fuera del EDT; mientras tanto la ventana muestra el progreso y no
+     * acepta cambios.
+     */
+    private void guardarPendientesAlSalir() {
+        if (cerrando) {
+            return;
+        }
+        int pendientes = escrituraDiferida.getPendientes();
+        if (pendientes == 0) {
+            salir();
+            return;
+        }
+        cerrando = true;
+        setEnabled(false);
+        setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+        searchStatusLabel.setText(String.format("Guardando %d cambios pendientes antes de salir...", pendientes));
+        tareas.ejecutar(null, 0, () -> escrituraDiferida.cerrar(UIConstants.WRITE_BEHIND_EXIT_TIMEOUT_MS), completa -> {
+            if (!completa) {
+                mostrarMensaje("No se pudieron guardar " + escrituraDiferida.getPendientes() + " de " + pendientes
+                        + " cambios pendientes antes de salir", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+            salir();
+        }, error -> {
+            logger.log(Level.SEVERE, "Error al guardar los cambios pendientes antes de salir", error);
+            salir();
+        });
+    }
+    
+    /**
+     * Cierra la ventana y termina la aplicación, como EXIT_ON_CLOSE
+     */
+    private void salir() {
+        dispose();
+        System.exit(0);
+    }
+    
+    /**
+     * Muestra u oculta el indicador de carga
+     */
+    private void mostrarOcupado(boolean ocupado) {
+        progressBar.setVisible(ocupado);
+        setCursor(ocupado ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : Cursor.getDefaultCursor());
+    }
+    
     /**
      * Ajusta el layout según el tamaño de la ventana
      */
@@ -994,6 +1560,19 @@ public class ProductFrame extends JFrame {
         return label;
     }
     
+    /**
+     * Filas de una consulta y el token de cambios con el que se leyeron
+     */
+    private static class ResultadoConsulta {
+        private final ProductColumnStore productos;
+        private final long token;
+        
+        ResultadoConsulta(ProductColumnStore productos, long token) {
+            this.productos = productos;
+            this.token = token;
+        }
+    }
+    
     /**
      * Renderer personalizado para la columna de acciones
      */
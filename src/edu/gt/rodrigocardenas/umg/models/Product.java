@@ -7,7 +7,7 @@ package edu.gt.rodrigocardenas.umg.models;
 public class Product {
     private int product_id;
     private String name;
-    private Float price;
+    private float price;
     private String active;
     
     /**
@@ -44,6 +44,36 @@ public class Product {
         this.active = active;
     }
     
+    /**
+     * Crea un producto a partir de una fila leída de la base de datos, sin repetir
+     * las validaciones que ya se aplicaron al guardarlo. Los estados Y/N se
+     * comparten entre todos los productos en lugar de guardar una cadena por fila.
+     * @param product_id ID del producto
+     * @param name Nombre del producto
+     * @param price Precio del producto
+     * @param active Estado del producto (Y/N)
+     * @return Producto creado
+     */
+    public static Product desdeBaseDeDatos(int product_id, String name, float price, String active) {
+        Product producto = new Product();
+        producto.product_id = product_id;
+        producto.name = name;
+        producto.price = price;
+        producto.active = "Y".equals(active) ? "Y" : "N".equals(active) ? "N" : active;
+        return producto;
+    }
+    
+    /**
+     * Constructor de copia
+     * @param otro Producto a copiar
+     */
+    public Product(Product otro) {
+        this.product_id = otro.product_id;
+        this.name = otro.name;
+        this.price = otro.price;
+        this.active = otro.active;
+    }
+    
     // Getters y Setters
     public int getProduct_id() {
         return product_id;
@@ -67,7 +97,7 @@ public class Product {
         this.name = name.trim();
     }
     
-    public Float getPrice() {
+    public float getPrice() {
         return price;
     }
     
@@ -110,7 +140,7 @@ public class Product {
      * @return true si el precio es mayor a 0, false en caso contrario
      */
     public boolean isPrecioValido() {
-        return price != null && price > 0;
+        return price > 0;
     }
     
     @Override
@@ -0,0 +1,262 @@
+package edu.gt.rodrigocardenas.umg.utils;
+
+import edu.gt.rodrigocardenas.umg.models.Product;
+import edu.gt.rodrigocardenas.umg.utils.ResultadoLote.EstadoFila;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Versión asíncrona de {@link ProductManager}: cada operación se ejecuta en
+ * segundo plano y devuelve un CompletableFuture. Usa hilos virtuales cuando la
+ * JVM los ofrece (Java 21+) y, si no, un grupo de hilos de plataforma. Las
+ * operaciones en curso nunca superan el tamaño máximo del pool de conexiones;
+ * las demás esperan su turno sin ocupar una conexión.
+ * Las operaciones nunca se interrumpen: interrumpir un hilo en medio de una llamada
+ * JDBC puede dejar inservible la conexión que vuelve al pool. El tiempo límite, o
+ * el {@link Deadline} de quien llama si vence antes, acota la espera de turno, la
+ * espera por la conexión y cada sentencia (setQueryTimeout), y la operación falla
+ * con {@link TiempoAgotadoException}. Cancelar el future evita que la operación
+ * empiece si aún espera su turno; si ya empezó, termina (acotada por su tiempo
+ * límite) y su resultado se ignora.
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public class AsyncProductManager {
+
+    private static final Logger logger = Logger.getLogger(AsyncProductManager.class.getName());
+    private static final AsyncProductManager instancia = new AsyncProductManager(
+            new Nucleo(UIConstants.DB_POOL_MAX_SIZE), UIConstants.ASYNC_TIMEOUT_MS);
+
+    private final Nucleo nucleo;
+    private final long tiempoLimiteMs;
+
+    private AsyncProductManager(Nucleo nucleo, long tiempoLimiteMs) {
+        this.nucleo = nucleo;
+        this.tiempoLimiteMs = tiempoLimiteMs;
+    }
+
+    /**
+     * Obtiene la instancia compartida, con el tiempo límite por defecto
+     * @return API asíncrona de productos
+     */
+    public static AsyncProductManager getInstance() {
+        return instancia;
+    }
+
+    /**
+     * Crea una vista que comparte los hilos y el límite de concurrencia, pero con
+     * otro tiempo límite por operación
+     * @param tiempoLimiteMs Tiempo límite en milisegundos (0 para no limitar)
+     * @return API asíncrona con el tiempo límite indicado
+     */
+    public AsyncProductManager conTiempoLimite(long tiempoLimiteMs) {
+        return new AsyncProductManager(nucleo, Math.max(0, tiempoLimiteMs));
+    }
+
+    /**
+     * @return Tiempo límite por operación en milisegundos (0 si no hay)
+     */
+    public long getTiempoLimiteMs() {
+        return tiempoLimiteMs;
+    }
+
+    /**
+     * @return true si las operaciones se ejecutan en hilos virtuales
+     */
+    public boolean isHilosVirtuales() {
+        return nucleo.hilosVirtuales;
+    }
+
+    // Consultas
+
+    public CompletableFuture<List<Product>> obtenerTodosLosProductos() {
+        return ejecutar(ProductManager::obtenerTodosLosProductos);
+    }
+
+    public CompletableFuture<Product> obtenerProducto(int productId) {
+        return ejecutar(() -> ProductManager.obtenerProducto(productId));
+    }
+
+    public CompletableFuture<List<Product>> buscarProductos(String busqueda) {
+        return ejecutar(() -> ProductManager.buscarProductos(busqueda));
+    }
+
+    public CompletableFuture<List<Product>> obtenerPagina(int despuesDeId, int tamano) {
+        return ejecutar(() -> ProductManager.obtenerPagina(despuesDeId, tamano));
+    }
+
+    public CompletableFuture<List<Product>> obtenerPaginaPorPosicion(int desplazamiento, int tamano) {
+        return ejecutar(() -> ProductManager.obtenerPaginaPorPosicion(desplazamiento, tamano));
+    }
+
+    public CompletableFuture<Integer> contarProductos() {
+        return ejecutar(ProductManager::contarProductos);
+    }
+
+    public CompletableFuture<Boolean> existeProducto(int productId) {
+        return ejecutar(() -> ProductManager.existeProducto(productId));
+    }
+
+    public CompletableFuture<Integer> obtenerSiguienteId() {
+        return ejecutar(ProductManager::obtenerSiguienteId);
+    }
+
+    // Escrituras de un producto
+
+    public CompletableFuture<Boolean> insertarProducto(Product producto) {
+        return ejecutar(() -> ProductManager.insertarProducto(producto));
+    }
+
+    public CompletableFuture<Boolean> actualizarProducto(Product producto) {
+        return ejecutar(() -> ProductManager.actualizarProducto(producto));
+    }
+
+    public CompletableFuture<Boolean> eliminarProducto(int productId) {
+        return ejecutar(() -> ProductManager.eliminarProducto(productId));
+    }
+
+    public CompletableFuture<EstadoFila> insertarSiNoExiste(Product producto) {
+        return ejecutar(() -> ProductManager.insertarSiNoExiste(producto));
+    }
+
+    public CompletableFuture<EstadoFila> guardarProducto(Product producto) {
+        return ejecutar(() -> ProductManager.guardarProducto(producto));
+    }
+
+    // Operaciones masivas
+
+    public CompletableFuture<ResultadoLote> insertarProductos(List<Product> productos) {
+        return ejecutar(() -> ProductManager.insertarProductos(productos));
+    }
+
+    public CompletableFuture<ResultadoLote> actualizarProductos(List<Product> productos) {
+        return ejecutar(() -> ProductManager.actualizarProductos(productos));
+    }
+
+    public CompletableFuture<ResultadoLote> eliminarProductos(int[] productIds) {
+        return ejecutar(() -> ProductManager.eliminarProductos(productIds));
+    }
+
+    public CompletableFuture<ResultadoLote> insertarProductosSiNoExisten(List<Product> productos) {
+        return ejecutar(() -> ProductManager.insertarProductosSiNoExisten(productos));
+    }
+
+    public CompletableFuture<ResultadoLote> guardarProductos(List<Product> productos) {
+        return ejecutar(() -> ProductManager.guardarProductos(productos));
+    }
+
+    /**
+     * Ejecuta una operación bloqueante de base de datos en segundo plano
+     * @param operacion Operación a ejecutar
+     * @param <T> Tipo del resultado
+     * @return Future que se completa con el resultado o el error de la operación;
+     *         falla con TiempoAgotadoException si se agota el tiempo límite
+     */
+    public <T> CompletableFuture<T> ejecutar(Callable<T> operacion) {
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        Deadline limite = Deadline.actual();
+        if (tiempoLimiteMs > 0) {
+            Deadline propio = Deadline.en(tiempoLimiteMs);
+            if (limite == null || propio.getRestanteNanos() < limite.getRestanteNanos()) {
+                limite = propio;
+            }
+        }
+        Deadline limiteOperacion = limite;
+        try {
+            nucleo.ejecutor.execute(() -> nucleo.correr(limiteOperacion, operacion, resultado));
+        } catch (RejectedExecutionException ex) {
+            resultado.completeExceptionally(new IllegalStateException("La API asíncrona de productos está cerrada", ex));
+        }
+        return resultado;
+    }
+
+    /**
+     * Detiene los hilos de la API asíncrona, incluidas las vistas creadas con
+     * {@link #conTiempoLimite(long)}. Las operaciones que esperan su turno se
+     * cancelan; las que están en curso terminan sin interrumpirse.
+     */
+    public void cerrar() {
+        nucleo.cerrado = true;
+        nucleo.ejecutor.shutdown();
+    }
+
+    /**
+     * Hilos y límite de concurrencia compartidos por todas las vistas
+     */
+    private static class Nucleo {
+        private final ExecutorService ejecutor;
+        private final Semaphore permisos;
+        private final boolean hilosVirtuales;
+        private volatile boolean cerrado = false;
+
+        Nucleo(int concurrencia) {
+            this.permisos = new Semaphore(concurrencia, true);
+            ExecutorService virtuales = crearEjecutorVirtual();
+            this.hilosVirtuales = virtuales != null;
+            this.ejecutor = virtuales != null ? virtuales : crearEjecutorPlataforma(concurrencia);
+        }
+
+        <T> void correr(Deadline limite, Callable<T> operacion, CompletableFuture<T> resultado) {
+            // Cancelada antes de empezar
+            if (resultado.isDone()) {
+                return;
+            }
+            boolean conPermiso = false;
+            try {
+                // La espera de turno también cuenta para el tiempo límite
+                if (limite == null) {
+                    permisos.acquire();
+                } else if (!permisos.tryAcquire(limite.getRestanteNanos(), TimeUnit.NANOSECONDS)) {
+                    throw new TiempoAgotadoException("espera de turno", limite.getPresupuestoMs(), null);
+                }
+                conPermiso = true;
+                if (cerrado) {
+                    resultado.completeExceptionally(new CancellationException("La API asíncrona de productos está cerrada"));
+                } else if (!resultado.isDone()) {
+                    resultado.complete(Deadline.ejecutar(limite, operacion));
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                resultado.completeExceptionally(new CancellationException("Operación interrumpida"));
+            } catch (Throwable ex) {
+                resultado.completeExceptionally(ex);
+            } finally {
+                if (conPermiso) {
+                    permisos.release();
+                }
+            }
+        }
+
+        /**
+         * Busca Executors.newVirtualThreadPerTaskExecutor por reflexión para
+         * seguir compilando con Java 17
+         */
+        private static ExecutorService crearEjecutorVirtual() {
+            try {
+                Method metodo = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) metodo.invoke(null);
+            } catch (ReflectiveOperationException | RuntimeException ex) {
+                logger.fine("Hilos virtuales no disponibles; se usan hilos de plataforma");
+                return null;
+            }
+        }
+
+        private static ExecutorService crearEjecutorPlataforma(int hilos) {
+            AtomicInteger contador = new AtomicInteger();
+            return Executors.newFixedThreadPool(hilos, r -> {
+                Thread hilo = new Thread(r, "async-db-worker-" + contador.incrementAndGet());
+                hilo.setDaemon(true);
+                return hilo;
+            });
+        }
+    }
+}
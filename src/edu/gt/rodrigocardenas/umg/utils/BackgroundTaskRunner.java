@@ -0,0 +1,171 @@
+package edu.gt.rodrigocardenas.umg.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+
+/**
+ * Ejecuta operaciones de base de datos fuera del Event Dispatch Thread y entrega
+ * sus resultados de vuelta en el EDT. Las tareas con la misma clave se reemplazan:
+ * al enviar una nueva, la anterior no se ejecuta si aún no empezó y, si ya empezó,
+ * termina sin interrumpirse y su resultado se ignora. Interrumpir un hilo en medio
+ * de una llamada JDBC puede dejar inservible la conexión que vuelve al pool.
+ * Cada tarea se ejecuta con un {@link Deadline} que empieza a correr al enviarla,
+ * por lo que una base de datos lenta produce un error en lugar de una espera indefinida.
+ * Los métodos públicos deben invocarse desde el EDT.
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public class BackgroundTaskRunner {
+
+    private static final Logger logger = Logger.getLogger(BackgroundTaskRunner.class.getName());
+
+    private final ExecutorService executor;
+    private final Map<String, Integer> generaciones = new HashMap<>();
+    private final Map<String, Future<?>> enCurso = new HashMap<>();
+    private Consumer<Boolean> indicadorOcupado = ocupado -> { };
+    private int tareasPendientes = 0;
+
+    /**
+     * Constructor
+     * @param hilos Número de hilos de trabajo
+     */
+    public BackgroundTaskRunner(int hilos) {
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(hilos, r -> {
+            Thread hilo = new Thread(r, "ui-db-worker-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+    }
+
+    /**
+     * Define el indicador que se activa mientras haya tareas pendientes
+     * @param indicadorOcupado Recibe true al iniciar la primera tarea y false al terminar la última
+     */
+    public void setIndicadorOcupado(Consumer<Boolean> indicadorOcupado) {
+        this.indicadorOcupado = indicadorOcupado;
+    }
+
+    /**
+     * Ejecuta una tarea en segundo plano con el tiempo límite UI_DB_TIMEOUT_MS
+     * @param clave Clave de reemplazo (null si la tarea no debe cancelarse por otra)
+     * @param tarea Operación a ejecutar fuera del EDT
+     * @param alTerminar Recibe el resultado en el EDT
+     * @param alFallar Recibe el error en el EDT
+     * @param <T> Tipo del resultado
+     */
+    public <T> void ejecutar(String clave, Callable<T> tarea, Consumer<T> alTerminar, Consumer<Throwable> alFallar) {
+        ejecutar(clave, UIConstants.UI_DB_TIMEOUT_MS, tarea, alTerminar, alFallar);
+    }
+
+    /**
+     * Ejecuta una tarea en segundo plano
+     * @param clave Clave de reemplazo (null si la tarea no debe cancelarse por otra)
+     * @param tiempoLimiteMs Tiempo límite de la tarea (0 para tareas largas sin límite)
+     * @param tarea Operación a ejecutar fuera del EDT
+     * @param alTerminar Recibe el resultado en el EDT
+     * @param alFallar Recibe el error en el EDT
+     * @param <T> Tipo del resultado
+     */
+    public <T> void ejecutar(String clave, long tiempoLimiteMs, Callable<T> tarea,
+                             Consumer<T> alTerminar, Consumer<Throwable> alFallar) {
+        Deadline limite = tiempoLimiteMs > 0 ? Deadline.en(tiempoLimiteMs) : null;
+        int generacion = 0;
+        if (clave != null) {
+            generacion = generaciones.merge(clave, 1, Integer::sum);
+            Future<?> anterior = enCurso.remove(clave);
+            if (anterior != null) {
+                anterior.cancel(false);
+            }
+        }
+        if (tareasPendientes++ == 0) {
+            indicadorOcupado.accept(true);
+        }
+
+        final int solicitud = generacion;
+        FutureTask<T> futuro = new FutureTask<T>(() -> Deadline.ejecutar(limite, tarea)) {
+            @Override
+            protected void done() {
+                // Se invoca al terminar, al fallar o al cancelarse (aunque no haya iniciado)
+                SwingUtilities.invokeLater(() -> entregar(clave, solicitud, this, alTerminar, alFallar));
+            }
+        };
+        executor.execute(futuro);
+        if (clave != null) {
+            enCurso.put(clave, futuro);
+        }
+    }
+
+    /**
+     * Descarta el resultado de la tarea en curso con la clave, por ejemplo una
+     * consulta que pudo leer la base de datos antes de una escritura
+     * @param clave Clave de la tarea
+     * @return true si había una tarea en curso
+     */
+    public boolean descartar(String clave) {
+        Future<?> anterior = enCurso.remove(clave);
+        if (anterior == null) {
+            return false;
+        }
+        generaciones.merge(clave, 1, Integer::sum);
+        anterior.cancel(false);
+        return true;
+    }
+
+    /**
+     * @param clave Clave de la tarea
+     * @return true si hay una tarea en curso con la clave
+     */
+    public boolean isEnCurso(String clave) {
+        return enCurso.containsKey(clave);
+    }
+
+    /**
+     * Detiene los hilos de trabajo
+     */
+    public void cerrar() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Entrega el resultado en el EDT si la tarea no fue reemplazada
+     */
+    private <T> void entregar(String clave, int solicitud, FutureTask<T> futuro,
+                              Consumer<T> alTerminar, Consumer<Throwable> alFallar) {
+        if (--tareasPendientes == 0) {
+            indicadorOcupado.accept(false);
+        }
+        if (futuro.isCancelled()) {
+            return;
+        }
+        if (clave != null) {
+            if (generaciones.get(clave) != solicitud) {
+                return; // Reemplazada por una tarea más reciente
+            }
+            enCurso.remove(clave);
+        }
+
+        T valor;
+        try {
+            valor = futuro.get();
+        } catch (ExecutionException ex) {
+            logger.log(Level.WARNING, "Error en tarea de base de datos en segundo plano", ex.getCause());
+            alFallar.accept(ex.getCause());
+            return;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        alTerminar.accept(valor);
+    }
+}
@@ -0,0 +1,71 @@
+package edu.gt.rodrigocardenas.umg.utils;
+
+import edu.gt.rodrigocardenas.umg.models.Product;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Productos insertados, actualizados o eliminados desde un token de cambios.
+ * El token es la mayor ROW_VERSION vista; se usa para pedir los cambios siguientes.
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public class CambiosProductos {
+
+    private final long desde;
+    private final long token;
+    private final List<Product> guardados;
+    private final int[] eliminados;
+
+    /**
+     * Constructor
+     * @param desde Token a partir del cual se consultaron los cambios
+     * @param token Token para la siguiente consulta
+     * @param guardados Productos insertados o actualizados, ordenados por ID
+     * @param eliminados IDs eliminados, ordenados y sin los que aparecen en guardados
+     */
+    public CambiosProductos(long desde, long token, List<Product> guardados, int[] eliminados) {
+        this.desde = desde;
+        this.token = token;
+        this.guardados = Collections.unmodifiableList(guardados);
+        this.eliminados = eliminados;
+    }
+
+    public long getDesde() {
+        return desde;
+    }
+
+    public long getToken() {
+        return token;
+    }
+
+    /**
+     * @return Productos insertados o actualizados, ordenados por ID
+     */
+    public List<Product> getGuardados() {
+        return guardados;
+    }
+
+    /**
+     * @return IDs de los productos eliminados, ordenados
+     */
+    public int[] getEliminados() {
+        return eliminados.clone();
+    }
+
+    /**
+     * @return Número de productos cambiados
+     */
+    public int getTotal() {
+        return guardados.size() + eliminados.length;
+    }
+
+    public boolean isVacio() {
+        return getTotal() == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "CambiosProductos{desde=" + desde + ", token=" + token + ", guardados=" + guardados.size()
+                + ", eliminados=" + eliminados.length + '}';
+    }
+}
@@ -0,0 +1,247 @@
+package edu.gt.rodrigocardenas.umg.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Copia local del último catálogo cargado, guardada en un archivo binario por
+ * columnas para mostrarla al abrir la aplicación antes de consultar la base de
+ * datos. El archivo se lee completo a un búfer del heap (no se mapea en memoria:
+ * en Windows un archivo mapeado no puede reemplazarse hasta que el recolector
+ * libera el mapeo, y eso haría fallar el siguiente guardado) y se valida con su
+ * versión de formato, la base de datos de origen y un CRC32 del contenido; si algo no
+ * coincide se ignora y se carga todo desde la base de datos. El token de cambios
+ * guardado permite ponerla al día con {@link ProductManager#obtenerCambiosDesde(long)}.
+ * <pre>
+ * Encabezado (40 bytes): MAGIC, VERSION, token, creado (ms), origen, filas, bytes de nombres, CRC32
+ * Contenido: columnas de {@link ProductColumnStore}
+ * </pre>
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public class CatalogSnapshot {
+
+    private static final Logger logger = Logger.getLogger(CatalogSnapshot.class.getName());
+
+    private static final int MAGIC = 0x554D4743;      // "UMGC"
+    private static final int VERSION = 1;
+    private static final int TAMANO_ENCABEZADO = 40;
+    private static final int POSICION_CRC = 36;
+    private static final int TAMANO_BUFER = 64 * 1024;
+
+    // Guardados en un solo hilo; si se piden varios seguidos solo se escribe el último
+    private static final ExecutorService escritor = Executors.newSingleThreadExecutor(r -> {
+        Thread hilo = new Thread(r, "catalog-snapshot");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+    private static final AtomicReference<CatalogSnapshot> pendiente = new AtomicReference<>();
+
+    private final ProductColumnStore productos;
+    private final long token;
+    private final long creadoMs;
+
+    /**
+     * Constructor
+     * @param productos Catálogo completo, ordenado por ID; no debe modificarse después
+     * @param token Token de cambios con el que se leyó el catálogo, o -1 si no se conoce
+     * @param creadoMs Momento de la lectura (System.currentTimeMillis)
+     */
+    public CatalogSnapshot(ProductColumnStore productos, long token, long creadoMs) {
+        this.productos = productos;
+        this.token = token;
+        this.creadoMs = creadoMs;
+    }
+
+    /**
+     * @return Archivo configurado en UIConstants.SNAPSHOT_FILE
+     */
+    public static Path getArchivo() {
+        return Paths.get(UIConstants.SNAPSHOT_FILE);
+    }
+
+    /**
+     * @return Productos de la copia
+     */
+    public ProductColumnStore getProductos() {
+        return productos;
+    }
+
+    /**
+     * @return Token de cambios de la copia, o -1 si no se conoce
+     */
+    public long getToken() {
+        return token;
+    }
+
+    /**
+     * @return Momento en que se leyó el catálogo de la copia
+     */
+    public long getCreadoMs() {
+        return creadoMs;
+    }
+
+    /**
+     * Indica si la copia puede ponerse al día con los cambios desde su token o si
+     * conviene volver a cargar todo el catálogo
+     * @return true si tiene token y no supera SNAPSHOT_MAX_AGE_MS
+     */
+    public boolean isVigente() {
+        return token >= 0 && System.currentTimeMillis() - creadoMs <= UIConstants.SNAPSHOT_MAX_AGE_MS;
+    }
+
+    /**
+     * Lee la copia del archivo
+     * @param archivo Archivo de la copia
+     * @return Copia leída, o null si no existe, es de otra versión u otra base de
+     *         datos, o está dañada
+     */
+    public static CatalogSnapshot leer(Path archivo) {
+        long inicio = System.nanoTime();
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamano = canal.size();
+            if (tamano < TAMANO_ENCABEZADO || tamano > Integer.MAX_VALUE) {
+                logger.warning("Copia local del catálogo con tamaño inválido: " + archivo);
+                return null;
+            }
+            ByteBuffer datos = ByteBuffer.allocate((int) tamano);
+            while (datos.hasRemaining()) {
+                if (canal.read(datos) < 0) {
+                    throw new EOFException("La copia local del catálogo terminó antes de lo esperado");
+                }
+            }
+            datos.flip();
+            if (datos.getInt() != MAGIC || datos.getInt() != VERSION) {
+                logger.info("Copia local del catálogo con otro formato; se ignora");
+                return null;
+            }
+            long token = datos.getLong();
+            long creadoMs = datos.getLong();
+            int origen = datos.getInt();
+            int filas = datos.getInt();
+            int bytesNombres = datos.getInt();
+            int crcEsperado = datos.getInt();
+            if (origen != calcularOrigen()) {
+                logger.info("Copia local del catálogo de otra base de datos; se ignora");
+                return null;
+            }
+            if (filas < 0 || bytesNombres < 0
+                    || tamano - TAMANO_ENCABEZADO != tamanoContenido(filas, bytesNombres)) {
+                logger.warning("Copia local del catálogo incompleta: " + archivo);
+                return null;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(datos.slice());
+            if ((int) crc.getValue() != crcEsperado) {
+                logger.warning("Copia local del catálogo dañada (CRC32 distinto): " + archivo);
+                return null;
+            }
+            ProductColumnStore productos = ProductColumnStore.leerColumnas(datos, filas, bytesNombres);
+            logger.fine(String.format("Copia local del catálogo: %d productos leídos en %.1f ms",
+                    filas, (System.nanoTime() - inicio) / 1_000_000.0));
+            return new CatalogSnapshot(productos, token, creadoMs);
+        } catch (NoSuchFileException ex) {
+            return null;
+        } catch (IOException | RuntimeException ex) {
+            logger.log(Level.WARNING, "No se pudo leer la copia local del catálogo", ex);
+            return null;
+        }
+    }
+
+    /**
+     * Escribe la copia en un archivo temporal y lo mueve sobre el anterior, para
+     * que una escritura interrumpida nunca deje un archivo a medias
+     * @param archivo Archivo de la copia
+     * @throws IOException si no se pudo escribir
+     */
+    public void guardar(Path archivo) throws IOException {
+        Path carpeta = archivo.toAbsolutePath().getParent();
+        if (carpeta != null) {
+            Files.createDirectories(carpeta);
+        }
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        int filas = productos.getTamano();
+        int bytesNombres = productos.getBytesNombres();
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            // Primero el contenido, calculando el CRC32; después el encabezado
+            canal.position(TAMANO_ENCABEZADO);
+            CRC32 crc = new CRC32();
+            DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(canal), crc), TAMANO_BUFER));
+            productos.escribirColumnas(salida);
+            salida.flush();
+
+            ByteBuffer encabezado = ByteBuffer.allocate(TAMANO_ENCABEZADO);
+            encabezado.putInt(MAGIC).putInt(VERSION).putLong(token).putLong(creadoMs)
+                    .putInt(calcularOrigen()).putInt(filas).putInt(bytesNombres);
+            encabezado.putInt(POSICION_CRC, (int) crc.getValue());
+            encabezado.rewind();
+            while (encabezado.hasRemaining()) {
+                canal.write(encabezado, encabezado.position());
+            }
+            canal.force(true);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(temporal);
+            throw ex;
+        }
+        try {
+            Files.move(temporal, archivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Guarda la copia en el archivo configurado sin bloquear al que llama; los
+     * errores solo se registran en el log
+     */
+    public void guardarEnSegundoPlano() {
+        if (!UIConstants.SNAPSHOT_ENABLED || pendiente.getAndSet(this) != null) {
+            return;
+        }
+        escritor.execute(() -> {
+            CatalogSnapshot copia = pendiente.getAndSet(null);
+            long inicio = System.nanoTime();
+            try {
+                copia.guardar(getArchivo());
+                logger.fine(String.format("Copia local del catálogo: %d productos guardados en %.1f ms",
+                        copia.productos.getTamano(), (System.nanoTime() - inicio) / 1_000_000.0));
+            } catch (IOException | RuntimeException ex) {
+                logger.log(Level.WARNING, "No se pudo guardar la copia local del catálogo", ex);
+            }
+        });
+    }
+
+    /**
+     * Bytes del contenido: IDs, precios, estados, longitudes y nombres
+     */
+    private static long tamanoContenido(int filas, int bytesNombres) {
+        return (long) filas * (Integer.BYTES + Float.BYTES + Integer.BYTES) + (filas + 7L) / 8 + bytesNombres;
+    }
+
+    /**
+     * Identifica la base de datos y el usuario para no mostrar la copia de otra
+     */
+    private static int calcularOrigen() {
+        return (UIConstants.DB_URL + "|" + UIConstants.DB_USER).hashCode();
+    }
+}
@@ -0,0 +1,579 @@
+package edu.gt.rodrigocardenas.umg.utils;
+
+import edu.gt.rodrigocardenas.umg.utils.ProductMetrics.Operacion;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * Pool acotado de conexiones JDBC para evitar abrir una conexión nueva en cada operación.
+ * Las conexiones entregadas son envoltorios: al cerrarlas vuelven al pool en lugar de
+ * cerrar la conexión física. Cada conexión física mantiene su propia caché de
+ * sentencias preparadas.
+ * Si el hilo tiene un {@link Deadline}, la espera por una conexión, el tiempo de
+ * espera del socket y el tiempo límite de cada sentencia se acotan a lo que resta
+ * de él; si no, se usan los valores por defecto de {@link UIConstants}.
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public class ConnectionPool implements DataSource {
+
+    private static final Logger logger = Logger.getLogger(ConnectionPool.class.getName());
+
+    private static ConnectionPool instancia;
+    private static final ProductMetrics metricas = ProductMetrics.getInstance();
+    // Margen del tiempo de espera del socket sobre el tiempo límite de la sentencia
+    private static final long MARGEN_RED_MS = 2_000;
+
+    private final String url;
+    private final String usuario;
+    private final String password;
+    private final int tamanoMinimo;
+    private final int tamanoMaximo;
+    private final long tiempoInactividadMs;
+    private final long tiempoEsperaMs;
+
+    private final LinkedBlockingDeque<ConexionInactiva> inactivas = new LinkedBlockingDeque<>();
+    private final Semaphore permisos;
+    private final AtomicInteger totalConexiones = new AtomicInteger();
+    private final ScheduledExecutorService mantenimiento;
+    private volatile boolean cerrado = false;
+    private volatile int tamanoCacheSentencias = UIConstants.DB_STATEMENT_CACHE_SIZE;
+    // Evita que dos precalentamientos simultáneos superen el tamaño mínimo
+    private final Object precalentamiento = new Object();
+
+    private final AtomicLong aciertosCache = new AtomicLong();
+    private final AtomicLong fallosCache = new AtomicLong();
+    private final AtomicLong desalojosCache = new AtomicLong();
+
+    /**
+     * Obtiene el pool global configurado con los datos de conexión de {@link UIConstants}
+     * @return Pool de conexiones compartido
+     */
+    public static synchronized ConnectionPool getInstance() {
+        if (instancia == null) {
+            instancia = new ConnectionPool(UIConstants.DB_URL, UIConstants.DB_USER, UIConstants.DB_PASSWORD,
+                    UIConstants.DB_POOL_MIN_SIZE, UIConstants.DB_POOL_MAX_SIZE,
+                    UIConstants.DB_POOL_IDLE_TIMEOUT_MS, UIConstants.DB_POOL_ACQUIRE_TIMEOUT_MS);
+        }
+        return instancia;
+    }
+
+    /**
+     * Reemplaza el pool global, por ejemplo para apuntar a una base de datos embebida.
+     * El pool anterior, si existía, se cierra.
+     * @param pool Nuevo pool global
+     */
+    public static synchronized void configurar(ConnectionPool pool) {
+        if (instancia != null && instancia != pool) {
+            instancia.cerrar();
+        }
+        instancia = pool;
+    }
+
+    /**
+     * Constructor
+     * @param url URL JDBC de la base de datos
+     * @param usuario Usuario de la base de datos
+     * @param password Contraseña del usuario
+     * @param tamanoMinimo Conexiones que se mantienen abiertas aunque estén inactivas
+     * @param tamanoMaximo Máximo de conexiones abiertas al mismo tiempo
+     * @param tiempoInactividadMs Tiempo tras el cual se cierra una conexión inactiva sobrante
+     * @param tiempoEsperaMs Tiempo máximo de espera para obtener una conexión
+     */
+    public ConnectionPool(String url, String usuario, String password, int tamanoMinimo, int tamanoMaximo,
+                          long tiempoInactividadMs, long tiempoEsperaMs) {
+        if (tamanoMaximo <= 0 || tamanoMinimo < 0 || tamanoMinimo > tamanoMaximo) {
+            throw new IllegalArgumentException("Tamaños de pool inválidos: mínimo " + tamanoMinimo + ", máximo " + tamanoMaximo);
+        }
+        this.url = url;
+        this.usuario = usuario;
+        this.password = password;
+        this.tamanoMinimo = tamanoMinimo;
+        this.tamanoMaximo = tamanoMaximo;
+        this.tiempoInactividadMs = tiempoInactividadMs;
+        this.tiempoEsperaMs = tiempoEsperaMs;
+        this.permisos = new Semaphore(tamanoMaximo, true);
+
+        this.mantenimiento = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "connection-pool-mantenimiento");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        long periodo = Math.max(1000, tiempoInactividadMs / 2);
+        mantenimiento.scheduleWithFixedDelay(this::mantener, periodo, periodo, TimeUnit.MILLISECONDS);
+        
+        // El tiempo de login de DriverManager es global: solo se define si nadie lo hizo
+        if (DriverManager.getLoginTimeout() == 0) {
+            DriverManager.setLoginTimeout(UIConstants.DB_LOGIN_TIMEOUT_S);
+        }
+    }
+
+    /**
+     * Obtiene una conexión del pool, esperando como máximo el tiempo configurado
+     * o lo que reste del Deadline del hilo.
+     * El tiempo de espera se registra en las métricas como adquirirConexion.
+     * @return Conexión que vuelve al pool al cerrarse
+     * @throws SQLException si no se pudo abrir la conexión o se agotó el tiempo de
+     *         espera (SQLTimeoutException)
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        long inicio = System.nanoTime();
+        try {
+            return adquirir();
+        } catch (SQLException ex) {
+            metricas.registrarFallo(Operacion.ADQUIRIR_CONEXION);
+            throw ex;
+        } finally {
+            metricas.registrar(Operacion.ADQUIRIR_CONEXION, inicio);
+        }
+    }
+
+    private Connection adquirir() throws SQLException {
+        if (cerrado) {
+            throw new SQLException("El pool de conexiones está cerrado");
+        }
+
+        long esperaMs = Deadline.acotar(tiempoEsperaMs);
+        try {
+            if (esperaMs <= 0 || !permisos.tryAcquire(esperaMs, TimeUnit.MILLISECONDS)) {
+                if (esperaMs < tiempoEsperaMs) {
+                    throw new SQLTimeoutException("Se agotó el tiempo límite de la operación esperando una conexión");
+                }
+                throw new SQLTimeoutException("No hay conexiones disponibles en el pool después de " + tiempoEsperaMs + " ms");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrumpido mientras se esperaba una conexión", ex);
+        }
+
+        try {
+            ConexionInactiva inactiva;
+            while ((inactiva = inactivas.pollFirst()) != null) {
+                if (validar(inactiva)) {
+                    return envolver(inactiva.fisica);
+                }
+                descartar(inactiva.fisica);
+            }
+            return envolver(crearConexion());
+        } catch (SQLException | RuntimeException ex) {
+            permisos.release();
+            throw ex;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("El pool solo maneja las credenciales configuradas");
+    }
+
+    /**
+     * Abre conexiones hasta alcanzar el tamaño mínimo configurado. Cada conexión se
+     * abre con un permiso, igual que en getConnection, para que junto con las
+     * conexiones prestadas nunca se supere el tamaño máximo; si no hay permisos
+     * libres, el pool ya está en uso y no necesita precalentarse.
+     */
+    public void precalentar() {
+        while (!cerrado && totalConexiones.get() < tamanoMinimo) {
+            if (!permisos.tryAcquire()) {
+                return;
+            }
+            try {
+                synchronized (precalentamiento) {
+                    if (cerrado || totalConexiones.get() >= tamanoMinimo) {
+                        return;
+                    }
+                    inactivas.offerFirst(new ConexionInactiva(crearConexion()));
+                }
+            } catch (SQLException ex) {
+                logger.log(Level.WARNING, "Error al precalentar el pool de conexiones", ex);
+                return;
+            } finally {
+                permisos.release();
+            }
+        }
+    }
+
+    /**
+     * Cierra todas las conexiones inactivas y rechaza nuevas solicitudes.
+     * Las conexiones en uso se cierran cuando son devueltas.
+     */
+    public void cerrar() {
+        cerrado = true;
+        mantenimiento.shutdownNow();
+        ConexionInactiva inactiva;
+        while ((inactiva = inactivas.pollFirst()) != null) {
+            descartar(inactiva.fisica);
+        }
+    }
+
+    /**
+     * @return Número de conexiones físicas abiertas
+     */
+    public int getTotalConexiones() {
+        return totalConexiones.get();
+    }
+
+    /**
+     * @return Número de conexiones abiertas que no están en uso
+     */
+    public int getConexionesInactivas() {
+        return inactivas.size();
+    }
+
+    /**
+     * @return Número de conexiones prestadas actualmente
+     */
+    public int getConexionesActivas() {
+        return tamanoMaximo - permisos.availablePermits();
+    }
+
+    /**
+     * Define el tamaño de la caché de sentencias de las conexiones que se abran
+     * a partir de este momento. Un tamaño de 0 desactiva la caché.
+     * @param tamano Sentencias preparadas por conexión
+     */
+    public void setTamanoCacheSentencias(int tamano) {
+        this.tamanoCacheSentencias = Math.max(0, tamano);
+    }
+
+    /**
+     * @return Veces que una sentencia preparada se reutilizó desde la caché
+     */
+    public long getAciertosCacheSentencias() {
+        return aciertosCache.get();
+    }
+
+    /**
+     * @return Veces que hubo que preparar una sentencia en la base de datos
+     */
+    public long getFallosCacheSentencias() {
+        return fallosCache.get();
+    }
+
+    /**
+     * @return Sentencias cerradas por exceder la capacidad de la caché
+     */
+    public long getDesalojosCacheSentencias() {
+        return desalojosCache.get();
+    }
+
+    /**
+     * Cierra las conexiones inactivas que superan el tiempo de inactividad
+     * mientras el pool esté por encima del tamaño mínimo, y repone hasta el mínimo
+     */
+    private void mantener() {
+        long ahora = System.currentTimeMillis();
+        int revisadas = inactivas.size();
+        for (int i = 0; i < revisadas && totalConexiones.get() > tamanoMinimo; i++) {
+            ConexionInactiva inactiva = inactivas.pollLast();
+            if (inactiva == null) {
+                break;
+            }
+            if (ahora - inactiva.desde >= tiempoInactividadMs) {
+                descartar(inactiva.fisica);
+            } else {
+                inactivas.offerLast(inactiva);
+                break;
+            }
+        }
+        precalentar();
+    }
+
+    /**
+     * Valida una conexión antes de prestarla. Las conexiones usadas hace muy poco
+     * se consideran válidas para evitar un viaje adicional a la base de datos.
+     */
+    private boolean validar(ConexionInactiva inactiva) {
+        try {
+            Connection conexion = inactiva.fisica.conexion;
+            if (conexion.isClosed()) {
+                return false;
+            }
+            if (System.currentTimeMillis() - inactiva.desde < UIConstants.DB_POOL_VALIDATION_BYPASS_MS) {
+                return true;
+            }
+            return conexion.isValid(UIConstants.DB_POOL_VALIDATION_TIMEOUT_S);
+        } catch (SQLException ex) {
+            logger.log(Level.FINE, "Conexión inválida descartada del pool", ex);
+            return false;
+        }
+    }
+
+    private ConexionFisica crearConexion() throws SQLException {
+        long inicio = System.nanoTime();
+        Connection conexion;
+        try {
+            conexion = DriverManager.getConnection(url, propiedadesConexion());
+        } catch (SQLException ex) {
+            metricas.registrarFallo(Operacion.ABRIR_CONEXION);
+            throw ex;
+        } finally {
+            metricas.registrar(Operacion.ABRIR_CONEXION, inicio);
+        }
+        ConexionFisica fisica;
+        try {
+            fisica = new ConexionFisica(conexion, new StatementCache(conexion, tamanoCacheSentencias,
+                    aciertosCache, fallosCache, desalojosCache));
+        } catch (SQLException ex) {
+            conexion.close();
+            throw ex;
+        }
+        totalConexiones.incrementAndGet();
+        return fisica;
+    }
+
+    /**
+     * Credenciales y, con el driver de Oracle, el tiempo máximo para establecer la
+     * conexión TCP, acotado por el Deadline del hilo
+     */
+    private Properties propiedadesConexion() {
+        Properties propiedades = new Properties();
+        propiedades.setProperty("user", usuario);
+        propiedades.setProperty("password", password);
+        if (url.startsWith("jdbc:oracle:")) {
+            long conexionMs = Math.max(1, Deadline.acotar(UIConstants.DB_LOGIN_TIMEOUT_S * 1000L));
+            propiedades.setProperty("oracle.net.CONNECT_TIMEOUT", Long.toString(conexionMs));
+        }
+        return propiedades;
+    }
+
+    /**
+     * Ajusta el tiempo máximo de espera del socket de una conexión prestada: lo que
+     * resta del Deadline más un margen, para que la base de datos cancele la
+     * sentencia antes y la conexión siga siendo utilizable
+     */
+    private void ajustarTiempoRed(ConexionFisica fisica) {
+        if (fisica.tiempoRedMs < 0) {
+            return; // El driver no lo soporta
+        }
+        Deadline limite = Deadline.actual();
+        int deseado = limite == null ? UIConstants.DB_NETWORK_TIMEOUT_MS
+                : (int) Math.min(UIConstants.DB_NETWORK_TIMEOUT_MS, limite.getRestanteMs() + MARGEN_RED_MS);
+        if (deseado == fisica.tiempoRedMs) {
+            return;
+        }
+        try {
+            fisica.conexion.setNetworkTimeout(mantenimiento, deseado);
+            fisica.tiempoRedMs = deseado;
+        } catch (SQLException | UnsupportedOperationException ex) {
+            logger.log(Level.FINE, "El driver no permite definir el tiempo de espera del socket", ex);
+            fisica.tiempoRedMs = -1;
+        }
+    }
+
+    /**
+     * Define el tiempo límite de una sentencia: lo que resta del Deadline del hilo
+     * o DB_QUERY_TIMEOUT_S si no hay
+     */
+    private static void aplicarTiempoLimite(Statement sentencia, Deadline limite) throws SQLException {
+        sentencia.setQueryTimeout(limite != null ? limite.getRestanteSegundos() : UIConstants.DB_QUERY_TIMEOUT_S);
+    }
+
+    private void descartar(ConexionFisica fisica) {
+        totalConexiones.decrementAndGet();
+        fisica.cache.cerrar();
+        try {
+            fisica.conexion.close();
+        } catch (SQLException ex) {
+            logger.log(Level.WARNING, "Error al cerrar conexión física", ex);
+        }
+    }
+
+    /**
+     * Devuelve una conexión al pool, restaurando su estado por defecto
+     */
+    private void devolver(ConexionFisica fisica) {
+        Connection conexion = fisica.conexion;
+        try {
+            boolean reutilizable = !cerrado && !conexion.isClosed();
+            if (reutilizable && !conexion.getAutoCommit()) {
+                conexion.rollback();
+                conexion.setAutoCommit(true);
+            }
+            if (reutilizable && fisica.estadoModificado) {
+                conexion.setTransactionIsolation(fisica.aislamientoInicial);
+                conexion.setReadOnly(fisica.soloLecturaInicial);
+                fisica.estadoModificado = false;
+            }
+            if (reutilizable) {
+                inactivas.offerFirst(new ConexionInactiva(fisica));
+            } else {
+                descartar(fisica);
+            }
+        } catch (SQLException ex) {
+            logger.log(Level.WARNING, "Conexión descartada al devolverla al pool", ex);
+            descartar(fisica);
+        } finally {
+            permisos.release();
+        }
+    }
+
+    private Connection envolver(ConexionFisica fisica) {
+        ajustarTiempoRed(fisica);
+        return (Connection) Proxy.newProxyInstance(
+                ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new ConexionPrestada(fisica));
+    }
+
+    /**
+     * Conexión física abierta junto con su caché de sentencias
+     */
+    private static class ConexionFisica {
+        private final Connection conexion;
+        private final StatementCache cache;
+        // Aislamiento y modo de solo lectura al abrirla, restaurados al devolverla
+        private final int aislamientoInicial;
+        private final boolean soloLecturaInicial;
+        // true si quien la tiene prestada cambió el aislamiento o el modo de solo lectura
+        private boolean estadoModificado = false;
+        // Tiempo de espera del socket definido (0 sin definir, -1 si el driver no lo soporta)
+        private int tiempoRedMs = 0;
+
+        ConexionFisica(Connection conexion, StatementCache cache) throws SQLException {
+            this.conexion = conexion;
+            this.cache = cache;
+            this.aislamientoInicial = conexion.getTransactionIsolation();
+            this.soloLecturaInicial = conexion.isReadOnly();
+        }
+    }
+
+    /**
+     * Conexión física en espera dentro del pool
+     */
+    private static class ConexionInactiva {
+        private final ConexionFisica fisica;
+        private final long desde;
+
+        ConexionInactiva(ConexionFisica fisica) {
+            this.fisica = fisica;
+            this.desde = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Manejador de la conexión prestada: intercepta close() para devolverla al pool,
+     * prepareStatement(String) para usar la caché de sentencias, la creación de
+     * sentencias para definir su tiempo límite, y los cambios de aislamiento o de
+     * solo lectura para restaurarlos al devolverla
+     */
+    private class ConexionPrestada implements InvocationHandler {
+        private final ConexionFisica fisica;
+        private boolean cerrada = false;
+
+        ConexionPrestada(ConexionFisica fisica) {
+            this.fisica = fisica;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!cerrada) {
+                        cerrada = true;
+                        devolver(fisica);
+                    }
+                    return null;
+                case "isClosed":
+                    return cerrada || fisica.conexion.isClosed();
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(fisica.conexion)) {
+                        return fisica.conexion;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConexionPrestada[" + fisica.conexion + "]";
+                default:
+                    break;
+            }
+            if (cerrada) {
+                throw new SQLException("La conexión ya fue devuelta al pool");
+            }
+            if (method.getName().equals("setTransactionIsolation") || method.getName().equals("setReadOnly")) {
+                fisica.estadoModificado = true;
+            }
+            Deadline limite = Deadline.actual();
+            boolean creaSentencia = method.getName().startsWith("prepare") || method.getName().equals("createStatement");
+            if (creaSentencia && limite != null && limite.isVencido()) {
+                throw new SQLTimeoutException("Se agotó el tiempo límite de la operación antes de ejecutar la sentencia");
+            }
+            Object resultado;
+            if (method.getName().equals("prepareStatement") && args.length == 1) {
+                resultado = fisica.cache.preparar((String) args[0]);
+            } else {
+                try {
+                    resultado = method.invoke(fisica.conexion, args);
+                } catch (InvocationTargetException ex) {
+                    throw ex.getCause();
+                }
+            }
+            if (creaSentencia && resultado instanceof Statement) {
+                aplicarTiempoLimite((Statement) resultado, limite);
+            }
+            return resultado;
+        }
+    }
+
+    // Métodos de DataSource no utilizados por el pool
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return null;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        DriverManager.setLoginTimeout(seconds);
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return DriverManager.getLoginTimeout();
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("No es un envoltorio de " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+}
@@ -0,0 +1,177 @@
+package edu.gt.rodrigocardenas.umg.utils;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Tiempo límite de una operación que se propaga por hilo desde quien la inicia
+ * (una acción de la interfaz o un proceso por lotes) hasta la obtención de la
+ * conexión, la ejecución de las sentencias y la lectura de los resultados.
+ * Un límite establecido dentro de otro nunca lo extiende: rige el más cercano.
+ * <pre>
+ * Deadline.Alcance alcance = Deadline.establecer(5_000);
+ * try {
+ *     ProductManager.buscarProductos("laptop");
+ * } finally {
+ *     alcance.close();
+ * }
+ * </pre>
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public final class Deadline {
+
+    private static final ThreadLocal<Deadline> actual = new ThreadLocal<>();
+
+    private final long limiteNanos;
+    private final long presupuestoMs;
+
+    private Deadline(long limiteNanos, long presupuestoMs) {
+        this.limiteNanos = limiteNanos;
+        this.presupuestoMs = presupuestoMs;
+    }
+
+    /**
+     * Crea un límite que vence dentro del tiempo indicado, sin asociarlo al hilo
+     * @param milisegundos Tiempo disponible
+     * @return Límite nuevo
+     */
+    public static Deadline en(long milisegundos) {
+        long presupuesto = Math.max(0, milisegundos);
+        return new Deadline(System.nanoTime() + presupuesto * 1_000_000L, presupuesto);
+    }
+
+    /**
+     * @return Límite vigente en el hilo actual, o null si no hay
+     */
+    public static Deadline actual() {
+        return actual.get();
+    }
+
+    /**
+     * Establece un límite en el hilo actual hasta cerrar el alcance devuelto
+     * @param milisegundos Tiempo disponible; si es 0 o menor no se agrega límite
+     * @return Alcance que restaura el límite anterior al cerrarse
+     */
+    public static Alcance establecer(long milisegundos) {
+        return milisegundos > 0 ? en(milisegundos).aplicar() : new Alcance(actual.get());
+    }
+
+    /**
+     * Ejecuta una operación con este límite en el hilo actual; se usa para llevar
+     * el límite de quien pidió la operación al hilo que la ejecuta
+     * @param limite Límite a aplicar, o null para ejecutar sin agregar límite
+     * @param operacion Operación a ejecutar
+     * @param <T> Tipo del resultado
+     * @return Resultado de la operación
+     * @throws Exception el error de la operación
+     */
+    public static <T> T ejecutar(Deadline limite, Callable<T> operacion) throws Exception {
+        if (limite == null) {
+            return operacion.call();
+        }
+        Alcance alcance = limite.aplicar();
+        try {
+            return operacion.call();
+        } finally {
+            alcance.close();
+        }
+    }
+
+    /**
+     * Acota una espera al tiempo restante del límite vigente en el hilo
+     * @param milisegundos Espera configurada
+     * @return La menor entre la espera configurada y el tiempo restante
+     */
+    public static long acotar(long milisegundos) {
+        Deadline limite = actual.get();
+        return limite == null ? milisegundos : Math.min(milisegundos, limite.getRestanteMs());
+    }
+
+    /**
+     * Asocia este límite al hilo actual, o el vigente si vence antes
+     * @return Alcance que restaura el límite anterior al cerrarse
+     */
+    public Alcance aplicar() {
+        Deadline anterior = actual.get();
+        actual.set(anterior != null && anterior.limiteNanos - limiteNanos < 0 ? anterior : this);
+        return new Alcance(anterior);
+    }
+
+    /**
+     * @return Tiempo total concedido en milisegundos
+     */
+    public long getPresupuestoMs() {
+        return presupuestoMs;
+    }
+
+    /**
+     * @return Tiempo restante en nanosegundos (0 si ya venció)
+     */
+    public long getRestanteNanos() {
+        return Math.max(0, limiteNanos - System.nanoTime());
+    }
+
+    /**
+     * @return Tiempo restante en milisegundos (0 si ya venció)
+     */
+    public long getRestanteMs() {
+        return getRestanteNanos() / 1_000_000L;
+    }
+
+    /**
+     * @return Tiempo restante en segundos redondeado hacia arriba, como lo espera
+     *         Statement.setQueryTimeout (al menos 1)
+     */
+    public int getRestanteSegundos() {
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, (getRestanteNanos() + 999_999_999L) / 1_000_000_000L));
+    }
+
+    /**
+     * @return true si ya venció
+     */
+    public boolean isVencido() {
+        return limiteNanos - System.nanoTime() <= 0;
+    }
+
+    /**
+     * Falla de inmediato si el límite ya venció
+     * @param etapa Etapa que estaba por iniciar
+     * @throws TiempoAgotadoException si el límite venció
+     */
+    public void verificar(String etapa) {
+        if (isVencido()) {
+            throw new TiempoAgotadoException(etapa, presupuestoMs, null);
+        }
+    }
+
+    /**
+     * Falla de inmediato si el límite vigente en el hilo ya venció
+     * @param etapa Etapa que estaba por iniciar
+     * @throws TiempoAgotadoException si el límite venció
+     */
+    public static void verificarActual(String etapa) {
+        Deadline limite = actual.get();
+        if (limite != null) {
+            limite.verificar(etapa);
+        }
+    }
+
+    /**
+     * Periodo en el que un límite está asociado al hilo
+     */
+    public static final class Alcance implements AutoCloseable {
+        private final Deadline anterior;
+
+        private Alcance(Deadline anterior) {
+            this.anterior = anterior;
+        }
+
+        @Override
+        public void close() {
+            if (anterior == null) {
+                actual.remove();
+            } else {
+                actual.set(anterior);
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package edu.gt.rodrigocardenas.umg.utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generador de IDs de productos por bloques (hi/lo) sobre una secuencia de Oracle.
+ * Cada NEXTVAL de la secuencia, definida con INCREMENT BY igual al tamaño de
+ * bloque, reserva un rango de IDs para este proceso; los IDs del rango se
+ * entregan desde memoria sin bloqueos. Varios procesos nunca reciben el mismo
+ * ID porque cada uno obtiene rangos distintos de la secuencia.
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public class IdAllocator {
+
+    private static final Logger logger = Logger.getLogger(IdAllocator.class.getName());
+    private static final IdAllocator instancia = new IdAllocator(UIConstants.DB_ID_SEQUENCE, UIConstants.DB_ID_BLOCK_SIZE);
+
+    private final String sqlSiguienteBloque;
+    private final int tamanoBloque;
+    private final AtomicReference<Bloque> actual = new AtomicReference<>();
+    private final Object recarga = new Object();
+
+    /**
+     * Obtiene el generador compartido por ProductManager
+     * @return Generador de IDs
+     */
+    public static IdAllocator getInstance() {
+        return instancia;
+    }
+
+    /**
+     * Constructor
+     * @param secuencia Nombre de la secuencia (con esquema)
+     * @param tamanoBloque IDs por bloque; debe coincidir con el INCREMENT BY de la secuencia
+     */
+    public IdAllocator(String secuencia, int tamanoBloque) {
+        if (tamanoBloque <= 0) {
+            throw new IllegalArgumentException("El tamaño de bloque debe ser positivo");
+        }
+        this.sqlSiguienteBloque = "SELECT " + secuencia + ".NEXTVAL FROM DUAL";
+        this.tamanoBloque = tamanoBloque;
+    }
+
+    /**
+     * Entrega el siguiente ID libre. Solo consulta la base de datos cuando se
+     * agota el bloque actual.
+     * @return ID nuevo, único entre todos los procesos que usan la secuencia
+     */
+    public int siguienteId() {
+        while (true) {
+            Bloque bloque = actual.get();
+            if (bloque != null) {
+                int id = bloque.siguiente.getAndIncrement();
+                if (id < bloque.fin) {
+                    return id;
+                }
+            }
+            // Bloque agotado: un solo hilo reserva el siguiente, los demás lo esperan
+            synchronized (recarga) {
+                if (actual.get() == bloque) {
+                    int inicio = reservarBloques(1)[0];
+                    actual.set(new Bloque(inicio, inicio + tamanoBloque));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reserva IDs para una carga masiva en una sola llamada, con bloques
+     * propios para no agotar el bloque compartido
+     * @param cantidad Número de IDs requeridos
+     * @return IDs reservados en orden ascendente
+     */
+    public int[] reservarIds(int cantidad) {
+        int[] ids = new int[cantidad];
+        if (cantidad == 0) {
+            return ids;
+        }
+        int[] inicios = reservarBloques((cantidad + tamanoBloque - 1) / tamanoBloque);
+        Arrays.sort(inicios);
+        // Los IDs sobrantes del último bloque se descartan
+        int i = 0;
+        for (int inicio : inicios) {
+            for (int id = inicio; id < inicio + tamanoBloque && i < cantidad; id++) {
+                ids[i++] = id;
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * @return IDs por bloque
+     */
+    public int getTamanoBloque() {
+        return tamanoBloque;
+    }
+
+    /**
+     * Obtiene el inicio de uno o varios bloques nuevos usando una sola conexión
+     */
+    private int[] reservarBloques(int bloques) {
+        long inicio = System.nanoTime();
+        int[] inicios = new int[bloques];
+        try (Connection conn = ConnectionPool.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(sqlSiguienteBloque)) {
+            for (int i = 0; i < bloques; i++) {
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new SQLException("La secuencia no devolvió ningún valor");
+                    }
+                    inicios[i] = rs.getInt(1);
+                }
+            }
+            return inicios;
+        } catch (SQLException ex) {
+            logger.log(Level.SEVERE, "Error al reservar bloque de IDs", ex);
+            ProductMetrics.getInstance().registrarError(ProductMetrics.Operacion.RESERVAR_IDS, ex);
+            throw ProductManager.errorDeBaseDeDatos(ProductMetrics.Operacion.RESERVAR_IDS, ex);
+        } finally {
+            ProductMetrics.getInstance().registrar(ProductMetrics.Operacion.RESERVAR_IDS, inicio);
+        }
+    }
+
+    /**
+     * Rango [siguiente, fin) de IDs reservados en memoria
+     */
+    private static class Bloque {
+        private final AtomicInteger siguiente;
+        private final int fin;
+
+        Bloque(int inicio, int fin) {
+            this.siguiente = new AtomicInteger(inicio);
+            this.fin = fin;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package edu.gt.rodrigocardenas.umg.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latencias concurrente y sin asignaciones al registrar. Usa
+ * intervalos logarítmicos con 8 subdivisiones por potencia de dos, por lo que
+ * los percentiles tienen un error máximo de 12.5%.
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public class LatencyHistogram {
+
+    private static final int BITS_SUBINTERVALO = 3;
+    private static final int SUBINTERVALOS = 1 << BITS_SUBINTERVALO;
+    private static final int INTERVALOS = (64 - BITS_SUBINTERVALO) * SUBINTERVALOS;
+
+    private final AtomicLongArray conteos = new AtomicLongArray(INTERVALOS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sumaNanos = new AtomicLong();
+    private final AtomicLong maximoNanos = new AtomicLong();
+
+    /**
+     * Registra una medición
+     * @param nanos Duración en nanosegundos
+     */
+    public void registrar(long nanos) {
+        long valor = Math.max(nanos, 0);
+        conteos.incrementAndGet(intervalo(valor));
+        total.incrementAndGet();
+        sumaNanos.addAndGet(valor);
+        long maximo;
+        while (valor > (maximo = maximoNanos.get()) && !maximoNanos.compareAndSet(maximo, valor)) {
+            // Reintentar hasta publicar el nuevo máximo
+        }
+    }
+
+    /**
+     * @return Número de mediciones
+     */
+    public long getConteo() {
+        return total.get();
+    }
+
+    /**
+     * @return Duración promedio en milisegundos
+     */
+    public double getPromedioMs() {
+        long n = total.get();
+        return n == 0 ? 0.0 : sumaNanos.get() / 1_000_000.0 / n;
+    }
+
+    /**
+     * @return Duración máxima en milisegundos
+     */
+    public double getMaximoMs() {
+        return maximoNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * Calcula un percentil aproximado
+     * @param percentil Percentil entre 0 y 100
+     * @return Límite superior del intervalo que contiene el percentil, en milisegundos
+     */
+    public double getPercentilMs(double percentil) {
+        long n = total.get();
+        if (n == 0) {
+            return 0.0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(n * percentil / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < INTERVALOS; i++) {
+            acumulado += conteos.get(i);
+            if (acumulado >= objetivo) {
+                return Math.min(limiteSuperior(i), maximoNanos.get()) / 1_000_000.0;
+            }
+        }
+        return getMaximoMs();
+    }
+
+    /**
+     * Descarta todas las mediciones
+     */
+    public void reiniciar() {
+        for (int i = 0; i < INTERVALOS; i++) {
+            conteos.set(i, 0);
+        }
+        total.set(0);
+        sumaNanos.set(0);
+        maximoNanos.set(0);
+    }
+
+    private static int intervalo(long valor) {
+        if (valor < SUBINTERVALOS) {
+            return (int) valor;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        int sub = (int) (valor >>> (exponente - BITS_SUBINTERVALO)) & (SUBINTERVALOS - 1);
+        return (exponente - BITS_SUBINTERVALO + 1) * SUBINTERVALOS + sub;
+    }
+
+    private static long limiteSuperior(int intervalo) {
+        if (intervalo < SUBINTERVALOS) {
+            return intervalo;
+        }
+        int exponente = intervalo / SUBINTERVALOS + BITS_SUBINTERVALO - 1;
+        int sub = intervalo % SUBINTERVALOS;
+        long inferior = (long) (SUBINTERVALOS + sub) << (exponente - BITS_SUBINTERVALO);
+        return inferior + (1L << (exponente - BITS_SUBINTERVALO)) - 1;
+    }
+}
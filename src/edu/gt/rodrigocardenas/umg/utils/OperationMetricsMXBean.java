@@ -0,0 +1,43 @@
+package edu.gt.rodrigocardenas.umg.utils;
+
+/**
+ * Métricas de una operación de ProductManager expuestas por JMX
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public interface OperationMetricsMXBean {
+
+    /**
+     * @return Número de ejecuciones, exitosas o no
+     */
+    long getConteo();
+
+    /**
+     * @return Número de ejecuciones que terminaron con error de base de datos
+     */
+    long getErrores();
+
+    double getPromedioMs();
+
+    double getP50Ms();
+
+    double getP99Ms();
+
+    double getMaximoMs();
+
+    /**
+     * @return Ejecuciones que tenían un tiempo límite (Deadline)
+     */
+    long getConPresupuesto();
+
+    /**
+     * @return Ejecuciones que terminaron con su tiempo límite vencido
+     */
+    long getPresupuestoAgotado();
+
+    /**
+     * @return Tiempo que le sobraba al 1% de ejecuciones más justas, en milisegundos
+     */
+    double getPresupuestoRestanteP1Ms();
+
+    double getPresupuestoRestantePromedioMs();
+}
@@ -0,0 +1,240 @@
+package edu.gt.rodrigocardenas.umg.utils;
+
+import edu.gt.rodrigocardenas.umg.models.Product;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.swing.SwingUtilities;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Modelo de tabla que carga los productos por páginas a medida que la tabla las
+ * solicita. Solo mantiene en memoria un número acotado de páginas, precarga la
+ * página siguiente a la visible y descarta las páginas más lejanas. Tiene las
+ * mismas columnas que {@link ProductTableModel}, pero siempre muestra el catálogo
+ * completo, por lo que no recibe listas de productos.
+ * Es un componente independiente para vistas de solo lectura de catálogos muy
+ * grandes: la ventana principal usa ProductTableModel, que admite búsquedas y
+ * cambios fila por fila. Como una inserción o eliminación desplaza las filas entre
+ * páginas, los cambios de la base de datos se reflejan con {@link #refrescarTabla()}.
+ * Todos los métodos deben invocarse desde el Event Dispatch Thread.
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public class PagedProductTableModel extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+    private static final Logger logger = Logger.getLogger(PagedProductTableModel.class.getName());
+    private static final String LOADING_TEXT = "Cargando...";
+
+    private final int tamanoPagina;
+    private final int maximoPaginas;
+    private final Map<Integer, List<Product>> paginas = new HashMap<>();
+    private final Set<Integer> paginasEnCarga = new HashSet<>();
+    // Último ID de cada página conocida, para pedir la siguiente por clave
+    private final TreeMap<Integer, Integer> ultimoIdPorPagina = new TreeMap<>();
+    private final ExecutorService cargador = Executors.newSingleThreadExecutor(r -> {
+        Thread hilo = new Thread(r, "product-table-paginas");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    private int totalFilas = 0;
+    private int ultimaPaginaAccedida = 0;
+    private int generacion = 0;
+
+    /**
+     * Constructor con el tamaño de página y el número de páginas por defecto
+     */
+    public PagedProductTableModel() {
+        this(UIConstants.TABLE_PAGE_SIZE, UIConstants.TABLE_MAX_CACHED_PAGES);
+    }
+
+    /**
+     * Constructor
+     * @param tamanoPagina Filas por página
+     * @param maximoPaginas Páginas que se mantienen en memoria
+     */
+    public PagedProductTableModel(int tamanoPagina, int maximoPaginas) {
+        if (tamanoPagina <= 0 || maximoPaginas < 2) {
+            throw new IllegalArgumentException("Se requiere un tamaño de página positivo y al menos 2 páginas en memoria");
+        }
+        this.tamanoPagina = tamanoPagina;
+        this.maximoPaginas = maximoPaginas;
+    }
+
+    /**
+     * Descarta las páginas cargadas, vuelve a contar los productos y carga la
+     * primera página en segundo plano
+     */
+    public void refrescarTabla() {
+        int solicitud = ++generacion;
+        cargador.execute(() -> {
+            try {
+                int total = ProductManager.contarProductos();
+                SwingUtilities.invokeLater(() -> {
+                    if (solicitud != generacion) {
+                        return;
+                    }
+                    paginas.clear();
+                    paginasEnCarga.clear();
+                    ultimoIdPorPagina.clear();
+                    totalFilas = total;
+                    fireTableDataChanged();
+                    solicitarPagina(0);
+                });
+            } catch (RuntimeException ex) {
+                logger.log(Level.SEVERE, "Error al contar productos para la tabla paginada", ex);
+            }
+        });
+    }
+
+    @Override
+    public int getRowCount() {
+        return totalFilas;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return ProductTableModel.NOMBRES_COLUMNAS.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return ProductTableModel.NOMBRES_COLUMNAS[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        return ProductTableModel.CLASES_COLUMNAS[columnIndex];
+    }
+
+    @Override
+    public boolean isCellEditable(int rowIndex, int columnIndex) {
+        return columnIndex == ProductTableModel.COLUMNA_ACCIONES;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        Product producto = getProducto(rowIndex);
+        if (producto == null) {
+            return columnIndex == 1 && rowIndex < totalFilas ? LOADING_TEXT : null;
+        }
+        return ProductTableModel.valorColumna(producto, columnIndex);
+    }
+
+    /**
+     * Obtiene el producto de la fila indicada si su página está cargada. Si no lo
+     * está, solicita la página en segundo plano y devuelve null.
+     * @param rowIndex Índice de la fila
+     * @return Producto en esa fila o null si aún no se ha cargado
+     */
+    public Product getProducto(int rowIndex) {
+        if (rowIndex < 0 || rowIndex >= totalFilas) {
+            return null;
+        }
+
+        int pagina = rowIndex / tamanoPagina;
+        ultimaPaginaAccedida = pagina;
+        List<Product> productos = paginas.get(pagina);
+        if (productos == null) {
+            solicitarPagina(pagina);
+            return null;
+        }
+
+        // Precargar la siguiente página para que el desplazamiento sea continuo
+        if ((pagina + 1) * tamanoPagina < totalFilas && !paginas.containsKey(pagina + 1)) {
+            solicitarPagina(pagina + 1);
+        }
+
+        int posicion = rowIndex % tamanoPagina;
+        return posicion < productos.size() ? productos.get(posicion) : null;
+    }
+
+    /**
+     * Obtiene los productos de las páginas cargadas actualmente
+     * @return Lista de productos en memoria ordenados por ID
+     */
+    public List<Product> getProductos() {
+        List<Product> productos = new ArrayList<>();
+        new TreeMap<>(paginas).values().forEach(productos::addAll);
+        return productos;
+    }
+
+    /**
+     * Libera el hilo de carga de páginas
+     */
+    public void cerrar() {
+        cargador.shutdownNow();
+    }
+
+    /**
+     * Solicita en segundo plano la carga de una página. Usa paginación por clave
+     * si se conoce el último ID de la página anterior y por posición en caso contrario.
+     */
+    private void solicitarPagina(int pagina) {
+        if (paginas.containsKey(pagina) || !paginasEnCarga.add(pagina)) {
+            return;
+        }
+
+        int solicitud = generacion;
+        Integer despuesDeId = pagina == 0 ? Integer.valueOf(0) : ultimoIdPorPagina.get(pagina - 1);
+        cargador.execute(() -> {
+            try {
+                List<Product> productos = despuesDeId != null
+                        ? ProductManager.obtenerPagina(despuesDeId, tamanoPagina)
+                        : ProductManager.obtenerPaginaPorPosicion(pagina * tamanoPagina, tamanoPagina);
+                SwingUtilities.invokeLater(() -> aplicarPagina(solicitud, pagina, productos));
+            } catch (RuntimeException ex) {
+                logger.log(Level.SEVERE, "Error al cargar la página " + pagina + " de productos", ex);
+                SwingUtilities.invokeLater(() -> paginasEnCarga.remove(pagina));
+            }
+        });
+    }
+
+    /**
+     * Guarda una página cargada, descarta las más lejanas y notifica a la tabla.
+     * Nunca descarta la página recién cargada ni la última accedida: la tabla la
+     * volvería a pedir al repintarse.
+     */
+    private void aplicarPagina(int solicitud, int pagina, List<Product> productos) {
+        if (solicitud != generacion) {
+            return;
+        }
+        paginasEnCarga.remove(pagina);
+        paginas.put(pagina, productos);
+        if (!productos.isEmpty()) {
+            ultimoIdPorPagina.put(pagina, productos.get(productos.size() - 1).getProduct_id());
+        }
+
+        while (paginas.size() > maximoPaginas) {
+            int masLejana = -1;
+            for (int candidata : paginas.keySet()) {
+                if (candidata == pagina || candidata == ultimaPaginaAccedida) {
+                    continue;
+                }
+                if (masLejana < 0
+                        || Math.abs(candidata - ultimaPaginaAccedida) > Math.abs(masLejana - ultimaPaginaAccedida)) {
+                    masLejana = candidata;
+                }
+            }
+            if (masLejana < 0) {
+                break;
+            }
+            paginas.remove(masLejana);
+        }
+
+        int primeraFila = pagina * tamanoPagina;
+        int ultimaFila = Math.min(primeraFila + tamanoPagina, totalFilas) - 1;
+        if (primeraFila <= ultimaFila) {
+            fireTableRowsUpdated(primeraFila, ultimaFila);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package edu.gt.rodrigocardenas.umg.utils;
+
+import edu.gt.rodrigocardenas.umg.models.Product;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Caché concurrente de productos por PRODUCT_ID con expiración por tiempo y
+ * tamaño máximo. Guarda copias de los productos para que los cambios hechos por
+ * la interfaz no alteren la caché antes de confirmarse en la base de datos.
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public class ProductCache {
+
+    private static final Logger logger = Logger.getLogger(ProductCache.class.getName());
+
+    private static final ProductCache instancia = new ProductCache(UIConstants.CACHE_MAX_SIZE, UIConstants.CACHE_TTL_MS);
+
+    private final int capacidad;
+    private final long ttlMs;
+    private final ConcurrentSkipListMap<Integer, Entrada> productos = new ConcurrentSkipListMap<>();
+    // Orden de llegada de las entradas para desalojar primero las más antiguas. Una
+    // entrada reemplazada, invalidada o expirada queda en la cola hasta que se
+    // desaloja o se compacta la cola; al desalojar solo cuenta si sigue en el mapa
+    private final ConcurrentLinkedQueue<Entrada> ordenLlegada = new ConcurrentLinkedQueue<>();
+    // Entradas en la cola (aproximado): ConcurrentLinkedQueue.size() recorre la cola
+    private final AtomicInteger enCola = new AtomicInteger();
+    // Momento hasta el cual la caché contiene el catálogo completo (0 si no lo contiene)
+    private volatile long catalogoCompletoHasta = 0;
+    // Evita repetir en el log que el catálogo no cabe en la caché
+    private volatile boolean avisoCatalogoGrande = false;
+
+    private final AtomicLong aciertos = new AtomicLong();
+    private final AtomicLong fallos = new AtomicLong();
+    private final AtomicLong desalojos = new AtomicLong();
+    private final AtomicLong cargas = new AtomicLong();
+    private final AtomicLong tiempoCargaNanos = new AtomicLong();
+
+    /**
+     * Obtiene la caché compartida por ProductManager
+     * @return Caché de productos
+     */
+    public static ProductCache getInstance() {
+        return instancia;
+    }
+
+    /**
+     * Constructor
+     * @param capacidad Número máximo de productos en caché
+     * @param ttlMs Tiempo de vida de cada producto en caché
+     */
+    public ProductCache(int capacidad, long ttlMs) {
+        this.capacidad = capacidad;
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Obtiene un producto de la caché
+     * @param productId ID del producto
+     * @return Copia del producto o null si no está en caché o expiró
+     */
+    public Product obtener(int productId) {
+        Entrada entrada = vigente(productId);
+        if (entrada == null) {
+            fallos.incrementAndGet();
+            return null;
+        }
+        aciertos.incrementAndGet();
+        return new Product(entrada.producto);
+    }
+
+    /**
+     * Verifica si un producto existe según la caché
+     * @param productId ID del producto
+     * @return TRUE si está en caché, FALSE si la caché tiene el catálogo completo
+     *         y el producto no está, o null si la caché no puede responder
+     */
+    public Boolean contiene(int productId) {
+        if (vigente(productId) != null) {
+            aciertos.incrementAndGet();
+            return Boolean.TRUE;
+        }
+        if (isCatalogoCompleto()) {
+            aciertos.incrementAndGet();
+            return Boolean.FALSE;
+        }
+        fallos.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Obtiene el catálogo completo si la caché lo contiene
+     * @return Copias de los productos ordenados por ID, o null si la caché no tiene el catálogo completo
+     */
+    public List<Product> obtenerTodos() {
+        if (!isCatalogoCompleto()) {
+            fallos.incrementAndGet();
+            return null;
+        }
+        aciertos.incrementAndGet();
+        List<Product> lista = new ArrayList<>(productos.size());
+        for (Entrada entrada : productos.values()) {
+            lista.add(new Product(entrada.producto));
+        }
+        return lista;
+    }
+
+    /**
+     * Reemplaza el contenido de la caché con el catálogo completo recién leído. Si
+     * el catálogo supera la capacidad no se guarda: la caché conserva los productos
+     * que ya tenía y las lecturas del catálogo completo siguen yendo a la base de datos.
+     * @param catalogo Productos leídos de la base de datos
+     * @param duracionCargaNanos Tiempo que tomó leer el catálogo
+     */
+    public void cargarTodos(List<Product> catalogo, long duracionCargaNanos) {
+        cargas.incrementAndGet();
+        tiempoCargaNanos.addAndGet(duracionCargaNanos);
+        if (catalogo.size() > capacidad) {
+            if (!avisoCatalogoGrande) {
+                avisoCatalogoGrande = true;
+                logger.warning(String.format("El catálogo (%d productos) supera la capacidad de la caché (%d); "
+                        + "se seguirá leyendo de la base de datos", catalogo.size(), capacidad));
+            }
+            return;
+        }
+        catalogoCompletoHasta = 0;
+        productos.clear();
+        ordenLlegada.clear();
+        enCola.set(0);
+
+        long ahora = System.currentTimeMillis();
+        for (Product producto : catalogo) {
+            Entrada entrada = new Entrada(new Product(producto), ahora);
+            productos.put(producto.getProduct_id(), entrada);
+            encolar(entrada);
+        }
+        catalogoCompletoHasta = ahora + ttlMs;
+    }
+
+    /**
+     * Registra un producto leído individualmente de la base de datos
+     * @param producto Producto leído
+     * @param duracionCargaNanos Tiempo que tomó leerlo
+     */
+    public void cargar(Product producto, long duracionCargaNanos) {
+        cargas.incrementAndGet();
+        tiempoCargaNanos.addAndGet(duracionCargaNanos);
+        guardar(producto);
+    }
+
+    /**
+     * Guarda un producto escrito en la base de datos (write-through)
+     * @param producto Producto insertado o actualizado
+     */
+    public void guardar(Product producto) {
+        Entrada entrada = new Entrada(new Product(producto), System.currentTimeMillis());
+        productos.put(producto.getProduct_id(), entrada);
+        encolar(entrada);
+        while (productos.size() > capacidad) {
+            Entrada masAntigua = ordenLlegada.poll();
+            if (masAntigua == null) {
+                break;
+            }
+            enCola.decrementAndGet();
+            // Solo se desaloja si la entrada no fue reemplazada por una más reciente
+            if (productos.remove(masAntigua.producto.getProduct_id(), masAntigua)) {
+                desalojos.incrementAndGet();
+                catalogoCompletoHasta = 0;
+            }
+        }
+    }
+
+    /**
+     * Elimina un producto de la caché; su entrada en la cola de llegada se descarta
+     * al desalojar o al compactar la cola
+     * @param productId ID del producto eliminado o con estado desconocido
+     */
+    public void invalidar(int productId) {
+        productos.remove(productId);
+    }
+
+    /**
+     * Vacía la caché
+     */
+    public void invalidarTodo() {
+        catalogoCompletoHasta = 0;
+        productos.clear();
+        ordenLlegada.clear();
+        enCola.set(0);
+    }
+
+    /**
+     * Extiende la vigencia del catálogo completo, si sigue vigente, después de
+     * aplicarle los cambios de la base de datos
+     */
+    public void renovar() {
+        if (isCatalogoCompleto()) {
+            catalogoCompletoHasta = System.currentTimeMillis() + ttlMs;
+        }
+    }
+
+    /**
+     * @return true si la caché contiene el catálogo completo y no ha expirado
+     */
+    public boolean isCatalogoCompleto() {
+        return System.currentTimeMillis() < catalogoCompletoHasta;
+    }
+
+    public long getAciertos() {
+        return aciertos.get();
+    }
+
+    public long getFallos() {
+        return fallos.get();
+    }
+
+    public long getDesalojos() {
+        return desalojos.get();
+    }
+
+    public int getTamano() {
+        return productos.size();
+    }
+
+    /**
+     * @return Proporción de consultas respondidas por la caché (0 a 1)
+     */
+    public double getTasaAciertos() {
+        long total = aciertos.get() + fallos.get();
+        return total == 0 ? 0.0 : (double) aciertos.get() / total;
+    }
+
+    /**
+     * @return Tiempo promedio de carga desde la base de datos en milisegundos
+     */
+    public double getTiempoCargaPromedioMs() {
+        long total = cargas.get();
+        return total == 0 ? 0.0 : tiempoCargaNanos.get() / 1_000_000.0 / total;
+    }
+
+    /**
+     * Agrega una entrada a la cola de llegada. Si la cola tiene más del doble de
+     * entradas que la caché, quita las que ya no están en el mapa para que no crezca
+     * sin límite cuando se reemplazan o invalidan productos sin llegar a desalojar.
+     */
+    private void encolar(Entrada entrada) {
+        ordenLlegada.add(entrada);
+        if (enCola.incrementAndGet() > 2 * productos.size() + 64) {
+            compactar();
+        }
+    }
+
+    private synchronized void compactar() {
+        if (enCola.get() <= 2 * productos.size() + 64) {
+            return;
+        }
+        ordenLlegada.removeIf(entrada -> productos.get(entrada.producto.getProduct_id()) != entrada);
+        enCola.set(ordenLlegada.size());
+    }
+
+    /**
+     * Obtiene la entrada de un producto si no ha expirado; las expiradas se desalojan
+     */
+    private Entrada vigente(int productId) {
+        Entrada entrada = productos.get(productId);
+        if (entrada == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entrada.cargado >= ttlMs) {
+            if (productos.remove(productId, entrada)) {
+                desalojos.incrementAndGet();
+                catalogoCompletoHasta = 0;
+            }
+            return null;
+        }
+        return entrada;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ProductCache{tamano=%d, tasaAciertos=%.2f, desalojos=%d, cargaPromedioMs=%.2f}",
+                getTamano(), getTasaAciertos(), getDesalojos(), getTiempoCargaPromedioMs());
+    }
+
+    /**
+     * Producto en caché junto con el momento en que se cargó
+     */
+    private static class Entrada {
+        private final Product producto;
+        private final long cargado;
+
+        Entrada(Product producto, long cargado) {
+            this.producto = producto;
+            this.cargado = cargado;
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package edu.gt.rodrigocardenas.umg.utils;
+
+import edu.gt.rodrigocardenas.umg.models.Product;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Almacén de productos por columnas para tablas con catálogos grandes. Guarda los
+ * IDs, precios y estados en arreglos primitivos y los nombres en un solo arreglo
+ * de bytes UTF-8, en lugar de un objeto Product y un String por fila. Las filas se
+ * mantienen ordenadas por ID: insertar o eliminar una fila desplaza las siguientes
+ * con System.arraycopy (O(n)), por lo que los lotes de cambios deben aplicarse con
+ * {@link #aplicar(List, int[])}. No es seguro entre hilos: cada hilo debe trabajar
+ * con su propia copia.
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public class ProductColumnStore {
+
+    private int tamano = 0;
+    private int[] ids;
+    private float[] precios;
+    private boolean[] activos;
+    private int[] inicioNombre;
+    private int[] longitudNombre;
+    private byte[] nombres;
+    private int bytesUsados = 0;
+    // Bytes de nombres que ya no pertenecen a ninguna fila
+    private int bytesLibres = 0;
+
+    /**
+     * Constructor
+     * @param capacidad Número de filas reservadas inicialmente
+     */
+    public ProductColumnStore(int capacidad) {
+        int filas = Math.max(capacidad, 4);
+        this.ids = new int[filas];
+        this.precios = new float[filas];
+        this.activos = new boolean[filas];
+        this.inicioNombre = new int[filas];
+        this.longitudNombre = new int[filas];
+        this.nombres = new byte[filas * 16];
+    }
+
+    /**
+     * Crea un almacén a partir de productos ordenados por ID
+     * @param productos Lista de productos
+     * @return Almacén con los mismos productos
+     */
+    public static ProductColumnStore desde(List<Product> productos) {
+        ProductColumnStore almacen = new ProductColumnStore(productos.size());
+        for (Product producto : productos) {
+            almacen.insertar(almacen.tamano, producto);
+        }
+        return almacen;
+    }
+
+    /**
+     * @return Número de filas
+     */
+    public int getTamano() {
+        return tamano;
+    }
+
+    public int getId(int fila) {
+        return ids[fila];
+    }
+
+    public String getNombre(int fila) {
+        return new String(nombres, inicioNombre[fila], longitudNombre[fila], StandardCharsets.UTF_8);
+    }
+
+    public float getPrecio(int fila) {
+        return precios[fila];
+    }
+
+    public boolean isActivo(int fila) {
+        return activos[fila];
+    }
+
+    /**
+     * Crea un producto con los datos de una fila
+     * @param fila Índice de la fila
+     * @return Producto nuevo con los valores de la fila
+     */
+    public Product getProducto(int fila) {
+        return Product.desdeBaseDeDatos(ids[fila], getNombre(fila), precios[fila], activos[fila] ? "Y" : "N");
+    }
+
+    /**
+     * @return Productos de todas las filas, ordenados por ID
+     */
+    public List<Product> aLista() {
+        List<Product> productos = new ArrayList<>(tamano);
+        for (int i = 0; i < tamano; i++) {
+            productos.add(getProducto(i));
+        }
+        return productos;
+    }
+
+    /**
+     * Busca la fila de un producto por búsqueda binaria sobre los IDs
+     * @param productId ID del producto
+     * @return Índice de la fila, o (-(punto de inserción) - 1) si no está
+     */
+    public int buscarFila(int productId) {
+        return Arrays.binarySearch(ids, 0, tamano, productId);
+    }
+
+    /**
+     * Inserta un producto en la fila indicada, desplazando las siguientes (O(n))
+     * @param fila Posición de la nueva fila
+     * @param producto Producto a insertar
+     */
+    public void insertar(int fila, Product producto) {
+        asegurarCapacidad(tamano + 1);
+        int siguientes = tamano - fila;
+        System.arraycopy(ids, fila, ids, fila + 1, siguientes);
+        System.arraycopy(precios, fila, precios, fila + 1, siguientes);
+        System.arraycopy(activos, fila, activos, fila + 1, siguientes);
+        System.arraycopy(inicioNombre, fila, inicioNombre, fila + 1, siguientes);
+        System.arraycopy(longitudNombre, fila, longitudNombre, fila + 1, siguientes);
+        tamano++;
+        escribir(fila, producto);
+    }
+
+    /**
+     * Reemplaza los datos de una fila
+     * @param fila Índice de la fila
+     * @param producto Nuevos datos
+     */
+    public void reemplazar(int fila, Product producto) {
+        bytesLibres += longitudNombre[fila];
+        escribir(fila, producto);
+        if (bytesLibres > bytesUsados / 2) {
+            compactarNombres();
+        }
+    }
+
+    /**
+     * Elimina una fila, desplazando las siguientes (O(n))
+     * @param fila Índice de la fila
+     */
+    public void eliminar(int fila) {
+        bytesLibres += longitudNombre[fila];
+        int siguientes = tamano - fila - 1;
+        System.arraycopy(ids, fila + 1, ids, fila, siguientes);
+        System.arraycopy(precios, fila + 1, precios, fila, siguientes);
+        System.arraycopy(activos, fila + 1, activos, fila, siguientes);
+        System.arraycopy(inicioNombre, fila + 1, inicioNombre, fila, siguientes);
+        System.arraycopy(longitudNombre, fila + 1, longitudNombre, fila, siguientes);
+        tamano--;
+        if (bytesLibres > bytesUsados / 2) {
+            compactarNombres();
+        }
+    }
+
+    /**
+     * Aplica un conjunto de cambios en una sola pasada, en lugar de desplazar las
+     * filas por cada inserción o eliminación
+     * @param guardados Productos insertados o actualizados, ordenados por ID
+     * @param eliminados IDs eliminados, ordenados
+     */
+    public void aplicar(List<Product> guardados, int[] eliminados) {
+        int[] idsAnteriores = ids;
+        float[] preciosAnteriores = precios;
+        boolean[] activosAnteriores = activos;
+        int[] inicioAnterior = inicioNombre;
+        int[] longitudAnterior = longitudNombre;
+        int filasAnteriores = tamano;
+
+        int capacidad = Math.max(filasAnteriores + guardados.size(), 4);
+        ids = new int[capacidad];
+        precios = new float[capacidad];
+        activos = new boolean[capacidad];
+        inicioNombre = new int[capacidad];
+        longitudNombre = new int[capacidad];
+        tamano = 0;
+
+        int anterior = 0;
+        int guardado = 0;
+        int eliminado = 0;
+        while (anterior < filasAnteriores || guardado < guardados.size()) {
+            int idAnterior = anterior < filasAnteriores ? idsAnteriores[anterior] : Integer.MAX_VALUE;
+            Product producto = guardado < guardados.size() ? guardados.get(guardado) : null;
+            if (producto != null && (anterior == filasAnteriores || producto.getProduct_id() <= idAnterior)) {
+                if (anterior < filasAnteriores && producto.getProduct_id() == idAnterior) {
+                    // Actualización: el nombre anterior queda libre
+                    bytesLibres += longitudAnterior[anterior];
+                    anterior++;
+                }
+                escribir(tamano++, producto);
+                guardado++;
+                continue;
+            }
+            while (eliminado < eliminados.length && eliminados[eliminado] < idAnterior) {
+                eliminado++;
+            }
+            if (eliminado < eliminados.length && eliminados[eliminado] == idAnterior) {
+                bytesLibres += longitudAnterior[anterior];
+            } else {
+                // Fila sin cambios: conserva su nombre en el arreglo actual
+                ids[tamano] = idAnterior;
+                precios[tamano] = preciosAnteriores[anterior];
+                activos[tamano] = activosAnteriores[anterior];
+                inicioNombre[tamano] = inicioAnterior[anterior];
+                longitudNombre[tamano] = longitudAnterior[anterior];
+                tamano++;
+            }
+            anterior++;
+        }
+        if (bytesLibres > bytesUsados / 2) {
+            compactarNombres();
+        }
+    }
+
+    /**
+     * @return Copia independiente del almacén, útil para leerlo desde otro hilo
+     */
+    public ProductColumnStore copia() {
+        ProductColumnStore copia = new ProductColumnStore(tamano);
+        System.arraycopy(ids, 0, copia.ids, 0, tamano);
+        System.arraycopy(precios, 0, copia.precios, 0, tamano);
+        System.arraycopy(activos, 0, copia.activos, 0, tamano);
+        System.arraycopy(inicioNombre, 0, copia.inicioNombre, 0, tamano);
+        System.arraycopy(longitudNombre, 0, copia.longitudNombre, 0, tamano);
+        copia.nombres = Arrays.copyOf(nombres, bytesUsados);
+        copia.bytesUsados = bytesUsados;
+        copia.bytesLibres = bytesLibres;
+        copia.tamano = tamano;
+        return copia;
+    }
+
+    /**
+     * Obtiene las filas cuyo nombre o ID contienen el término, con la misma
+     * semántica que ProductManager.buscarProductos
+     * @param terminoMinusculas Término de búsqueda en minúsculas
+     * @return Almacén nuevo con las filas que coinciden
+     */
+    public ProductColumnStore filtrar(String terminoMinusculas) {
+        ProductColumnStore resultado = new ProductColumnStore(16);
+        for (int i = 0; i < tamano; i++) {
+            String nombre = getNombre(i);
+            if (ProductSearchIndex.coincide(ids[i], nombre, terminoMinusculas)) {
+                resultado.insertar(resultado.tamano, Product.desdeBaseDeDatos(ids[i], nombre, precios[i],
+                        activos[i] ? "Y" : "N"));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * @return Bytes UTF-8 de los nombres de todas las filas
+     */
+    int getBytesNombres() {
+        int total = 0;
+        for (int i = 0; i < tamano; i++) {
+            total += longitudNombre[i];
+        }
+        return total;
+    }
+
+    /**
+     * Escribe las columnas una tras otra: IDs, precios, estados (un bit por fila),
+     * longitudes de los nombres y los nombres en UTF-8
+     * @param salida Destino
+     * @throws IOException si no se pudo escribir
+     */
+    void escribirColumnas(DataOutput salida) throws IOException {
+        for (int i = 0; i < tamano; i++) {
+            salida.writeInt(ids[i]);
+        }
+        for (int i = 0; i < tamano; i++) {
+            salida.writeFloat(precios[i]);
+        }
+        // Ocho estados por byte, empezando por el bit menos significativo
+        for (int i = 0; i < tamano; i += 8) {
+            int bits = 0;
+            for (int j = 0; j < 8 && i + j < tamano; j++) {
+                if (activos[i + j]) {
+                    bits |= 1 << j;
+                }
+            }
+            salida.writeByte(bits);
+        }
+        for (int i = 0; i < tamano; i++) {
+            salida.writeInt(longitudNombre[i]);
+        }
+        for (int i = 0; i < tamano; i++) {
+            salida.write(nombres, inicioNombre[i], longitudNombre[i]);
+        }
+    }
+
+    /**
+     * Lee columnas escritas con {@link #escribirColumnas(DataOutput)}
+     * @param origen Datos, posicionados al inicio de las columnas
+     * @param filas Número de filas
+     * @param bytesNombres Bytes de los nombres
+     * @return Almacén con las filas leídas
+     * @throws IllegalArgumentException si las longitudes no suman bytesNombres
+     */
+    static ProductColumnStore leerColumnas(ByteBuffer origen, int filas, int bytesNombres) {
+        ProductColumnStore almacen = new ProductColumnStore(filas);
+        origen.asIntBuffer().get(almacen.ids, 0, filas);
+        origen.position(origen.position() + filas * Integer.BYTES);
+        origen.asFloatBuffer().get(almacen.precios, 0, filas);
+        origen.position(origen.position() + filas * Float.BYTES);
+        for (int i = 0; i < filas; i += 8) {
+            int bits = origen.get();
+            for (int j = 0; j < 8 && i + j < filas; j++) {
+                almacen.activos[i + j] = (bits & (1 << j)) != 0;
+            }
+        }
+        origen.asIntBuffer().get(almacen.longitudNombre, 0, filas);
+        origen.position(origen.position() + filas * Integer.BYTES);
+        int posicion = 0;
+        for (int i = 0; i < filas && posicion >= 0; i++) {
+            almacen.inicioNombre[i] = posicion;
+            posicion = almacen.longitudNombre[i] < 0 ? -1 : posicion + almacen.longitudNombre[i];
+        }
+        if (posicion != bytesNombres) {
+            throw new IllegalArgumentException("Las longitudes de los nombres no coinciden con sus bytes");
+        }
+        almacen.nombres = new byte[Math.max(bytesNombres, 16)];
+        origen.get(almacen.nombres, 0, bytesNombres);
+        almacen.bytesUsados = bytesNombres;
+        almacen.tamano = filas;
+        return almacen;
+    }
+
+    /**
+     * Escribe los datos de un producto en una fila ya reservada
+     */
+    private void escribir(int fila, Product producto) {
+        byte[] nombre = producto.getName().getBytes(StandardCharsets.UTF_8);
+        if (bytesUsados + nombre.length > nombres.length) {
+            nombres = Arrays.copyOf(nombres, Math.max(nombres.length * 2, bytesUsados + nombre.length));
+        }
+        System.arraycopy(nombre, 0, nombres, bytesUsados, nombre.length);
+        ids[fila] = producto.getProduct_id();
+        precios[fila] = producto.getPrice();
+        activos[fila] = producto.isActivo();
+        inicioNombre[fila] = bytesUsados;
+        longitudNombre[fila] = nombre.length;
+        bytesUsados += nombre.length;
+    }
+
+    /**
+     * Copia los nombres vigentes a un arreglo nuevo, descartando los reemplazados
+     */
+    private void compactarNombres() {
+        byte[] compactos = new byte[Math.max(bytesUsados - bytesLibres, 16)];
+        int posicion = 0;
+        for (int i = 0; i < tamano; i++) {
+            System.arraycopy(nombres, inicioNombre[i], compactos, posicion, longitudNombre[i]);
+            inicioNombre[i] = posicion;
+            posicion += longitudNombre[i];
+        }
+        nombres = compactos;
+        bytesUsados = posicion;
+        bytesLibres = 0;
+    }
+
+    private void asegurarCapacidad(int filas) {
+        if (filas > ids.length) {
+            int capacidad = Math.max(filas, ids.length * 2);
+            ids = Arrays.copyOf(ids, capacidad);
+            precios = Arrays.copyOf(precios, capacidad);
+            activos = Arrays.copyOf(activos, capacidad);
+            inicioNombre = Arrays.copyOf(inicioNombre, capacidad);
+            longitudNombre = Arrays.copyOf(longitudNombre, capacidad);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package edu.gt.rodrigocardenas.umg.utils;
+
+import edu.gt.rodrigocardenas.umg.models.Product;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exporta productos a CSV o JSON Lines en memoria constante: las filas pasan del
+ * cursor de la base de datos a un canal de archivo con búfer (y opcionalmente
+ * gzip) sin reunir el catálogo en una lista. El CSV usa las mismas columnas que
+ * acepta {@link ProductImporter}.
+ * Uso sin interfaz: java -cp build/classes:lib/ojdbc17.jar edu.gt.rodrigocardenas.umg.utils.ProductExporter archivo.csv[.gz] [busqueda]
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public class ProductExporter {
+
+    private static final int TAMANO_BUFER = 64 * 1024;
+
+    /**
+     * Formatos de exportación
+     */
+    public enum Formato {
+        CSV(".csv"),
+        JSONL(".jsonl");
+
+        private final String extension;
+
+        Formato(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private final Formato formato;
+    private final boolean comprimir;
+
+    /**
+     * Constructor
+     * @param formato Formato del archivo
+     * @param comprimir true para escribir el archivo con gzip
+     */
+    public ProductExporter(Formato formato, boolean comprimir) {
+        this.formato = formato;
+        this.comprimir = comprimir;
+    }
+
+    /**
+     * Crea un exportador según el nombre del archivo: .jsonl para JSON Lines,
+     * cualquier otro para CSV, y .gz al final para comprimir
+     * @param destino Archivo de destino
+     * @return Exportador para ese archivo
+     */
+    public static ProductExporter paraArchivo(Path destino) {
+        String nombre = destino.getFileName().toString().toLowerCase(Locale.ROOT);
+        boolean comprimir = nombre.endsWith(".gz");
+        if (comprimir) {
+            nombre = nombre.substring(0, nombre.length() - 3);
+        }
+        return new ProductExporter(nombre.endsWith(Formato.JSONL.getExtension()) ? Formato.JSONL : Formato.CSV, comprimir);
+    }
+
+    /**
+     * Exporta los productos que coinciden con la búsqueda, con el mismo criterio
+     * que {@link ProductManager#buscarProductos(String)}. No debe llamarse desde el EDT.
+     * @param destino Archivo de destino; se reemplaza si existe y se borra si la exportación falla
+     * @param busqueda Término de búsqueda, o null o vacío para exportar todo el catálogo
+     * @return Número de productos exportados
+     * @throws IOException si no se pudo escribir el archivo
+     */
+    public long exportar(Path destino, String busqueda) throws IOException {
+        boolean completa = busqueda == null || busqueda.trim().isEmpty();
+        try (Stream<Product> productos = completa
+                ? ProductManager.streamProductos(UIConstants.DB_FETCH_SIZE)
+                : ProductManager.streamBuscarProductos(busqueda.trim(), UIConstants.DB_FETCH_SIZE)) {
+            return exportar(destino, productos.iterator());
+        }
+    }
+
+    /**
+     * Escribe los productos en el archivo a medida que se recorren
+     * @param destino Archivo de destino
+     * @param productos Productos a escribir
+     * @return Número de productos escritos
+     * @throws IOException si no se pudo escribir el archivo
+     */
+    public long exportar(Path destino, Iterator<Product> productos) throws IOException {
+        long filas = 0;
+        try (Writer escritor = abrir(destino)) {
+            if (formato == Formato.CSV) {
+                escritor.write("PRODUCT_ID,NAME,PRICE,ACTIVE\n");
+            }
+            while (productos.hasNext()) {
+                escribir(escritor, productos.next());
+                filas++;
+            }
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(destino);
+            throw ex;
+        }
+        return filas;
+    }
+
+    /**
+     * Abre el archivo como canal y le agrega gzip y un búfer de caracteres
+     */
+    private Writer abrir(Path destino) throws IOException {
+        FileChannel canal = FileChannel.open(destino, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        OutputStream salida = Channels.newOutputStream(canal);
+        if (comprimir) {
+            salida = new GZIPOutputStream(salida, TAMANO_BUFER);
+        }
+        return new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), TAMANO_BUFER);
+    }
+
+    private void escribir(Writer escritor, Product producto) throws IOException {
+        String precio = formatearPrecio(producto.getPrice());
+        if (formato == Formato.CSV) {
+            escritor.write(Integer.toString(producto.getProduct_id()));
+            escritor.write(',');
+            escribirCampoCsv(escritor, producto.getName());
+            escritor.write(',');
+            escritor.write(precio);
+            escritor.write(',');
+            escritor.write(producto.getActive());
+        } else {
+            escritor.write("{\"product_id\":");
+            escritor.write(Integer.toString(producto.getProduct_id()));
+            escritor.write(",\"name\":");
+            escribirCadenaJson(escritor, producto.getName());
+            escritor.write(",\"price\":");
+            escritor.write(precio);
+            escritor.write(",\"active\":");
+            escribirCadenaJson(escritor, producto.getActive());
+            escritor.write('}');
+        }
+        escritor.write('\n');
+    }
+
+    /**
+     * Formatea el precio con dos decimales, como se guarda en PRICE NUMBER(10,2),
+     * y sin notación científica
+     */
+    private static String formatearPrecio(float precio) {
+        return BigDecimal.valueOf(precio).setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    private static void escribirCampoCsv(Writer escritor, String valor) throws IOException {
+        boolean citar = valor.indexOf(',') >= 0 || valor.indexOf('"') >= 0
+                || valor.indexOf('\n') >= 0 || valor.indexOf('\r') >= 0;
+        if (!citar) {
+            escritor.write(valor);
+            return;
+        }
+        escritor.write('"');
+        escritor.write(valor.replace("\"", "\"\""));
+        escritor.write('"');
+    }
+
+    private static void escribirCadenaJson(Writer escritor, String valor) throws IOException {
+        escritor.write('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"':
+                    escritor.write("\\\"");
+                    break;
+                case '\\':
+                    escritor.write("\\\\");
+                    break;
+                case '\n':
+                    escritor.write("\\n");
+                    break;
+                case '\r':
+                    escritor.write("\\r");
+                    break;
+                case '\t':
+                    escritor.write("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        escritor.write(String.format("\\u%04x", (int) c));
+                    } else {
+                        escritor.write(c);
+                    }
+            }
+        }
+        escritor.write('"');
+    }
+
+    /**
+     * Exporta desde la línea de comandos usando la conexión de {@link UIConstants}
+     * @param args Archivo de destino y, opcionalmente, término de búsqueda
+     */
+    public static void main(String[] args) {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Uso: ProductExporter archivo.(csv|jsonl)[.gz] [busqueda]");
+            System.exit(2);
+        }
+        Path destino = Paths.get(args[0]);
+        long inicio = System.nanoTime();
+        try {
+            long filas = paraArchivo(destino).exportar(destino, args.length > 1 ? args[1] : null);
+            double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+            System.out.printf("%d productos exportados a %s en %.1f s%n", filas, destino, segundos);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            ConnectionPool.getInstance().cerrar();
+        }
+    }
+}
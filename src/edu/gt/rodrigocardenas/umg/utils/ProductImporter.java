@@ -0,0 +1,525 @@
+package edu.gt.rodrigocardenas.umg.utils;
+
+import edu.gt.rodrigocardenas.umg.models.Product;
+import edu.gt.rodrigocardenas.umg.utils.ResultadoLote.EstadoFila;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Importa productos desde un archivo CSV (PRODUCT_ID,NAME,PRICE,ACTIVE) en tres
+ * etapas: el hilo que llama lee el archivo por bloques, varios hilos validan las
+ * filas con las reglas de {@link Product} y otros las escriben en lotes usando
+ * conexiones del pool. Las etapas se comunican por colas acotadas, por lo que la
+ * lectura se detiene si la base de datos no da abasto. Las filas rechazadas se
+ * escriben en un archivo de errores con su número de línea y el motivo.
+ * Un PRODUCT_ID vacío se reemplaza por un ID reservado de la secuencia. Un campo
+ * entre comillas puede contener saltos de línea, como los que escribe
+ * {@link ProductExporter}; se leen como \n.
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public class ProductImporter {
+
+    private static final Logger logger = Logger.getLogger(ProductImporter.class.getName());
+    private static final long ESPERA_MS = 100;
+
+    /**
+     * Qué hacer con las filas cuyo ID ya existe
+     */
+    public enum Modo {
+        /** Solo inserta: los IDs existentes se rechazan como duplicados */
+        INSERTAR,
+        /** Actualiza los IDs existentes e inserta los demás */
+        GUARDAR
+    }
+
+    /**
+     * Recibe el avance de la importación desde los hilos de trabajo
+     */
+    public interface Progreso {
+        void actualizar(long procesadas, long rechazadas);
+    }
+
+    private final Modo modo;
+    private final int hilosValidacion;
+    private final int hilosEscritura;
+    private final int tamanoBloque;
+    private final int capacidadCola;
+
+    /**
+     * Constructor con la configuración por defecto de {@link UIConstants}
+     * @param modo Tratamiento de los IDs existentes
+     */
+    public ProductImporter(Modo modo) {
+        this(modo, UIConstants.IMPORT_PARSER_THREADS, UIConstants.IMPORT_WRITER_THREADS,
+                UIConstants.IMPORT_CHUNK_SIZE, UIConstants.IMPORT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Constructor
+     * @param modo Tratamiento de los IDs existentes
+     * @param hilosValidacion Hilos que separan y validan las filas
+     * @param hilosEscritura Hilos que escriben en la base de datos; cada uno ocupa una conexión del pool
+     * @param tamanoBloque Filas por bloque enviado a la base de datos
+     * @param capacidadCola Bloques en espera entre una etapa y la siguiente
+     */
+    public ProductImporter(Modo modo, int hilosValidacion, int hilosEscritura, int tamanoBloque, int capacidadCola) {
+        if (hilosValidacion <= 0 || hilosEscritura <= 0 || tamanoBloque <= 0 || capacidadCola <= 0) {
+            throw new IllegalArgumentException("La configuración de la importación debe ser positiva");
+        }
+        this.modo = modo;
+        this.hilosValidacion = hilosValidacion;
+        this.hilosEscritura = hilosEscritura;
+        this.tamanoBloque = tamanoBloque;
+        this.capacidadCola = capacidadCola;
+    }
+
+    /**
+     * Importa un archivo CSV. Bloquea hasta terminar, por lo que no debe
+     * llamarse desde el EDT.
+     * @param archivo Archivo CSV en UTF-8; la primera línea se omite si es un encabezado
+     * @param archivoErrores Archivo donde se escriben las filas rechazadas
+     * @param progreso Recibe el avance después de cada bloque (puede ser null)
+     * @return Resumen de la importación
+     * @throws IOException si no se pudo leer el archivo o escribir el de errores
+     */
+    public Resumen importar(Path archivo, Path archivoErrores, Progreso progreso) throws IOException {
+        long inicio = System.nanoTime();
+        AtomicInteger contador = new AtomicInteger();
+        ExecutorService hilos = Executors.newFixedThreadPool(hilosValidacion + hilosEscritura, r -> {
+            Thread hilo = new Thread(r, "csv-import-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+
+        try (BufferedReader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8);
+             BufferedWriter errores = Files.newBufferedWriter(archivoErrores, StandardCharsets.UTF_8)) {
+            errores.write("linea,motivo,contenido");
+            errores.newLine();
+            Importacion importacion = new Importacion(errores, progreso);
+
+            // Los hilos heredan el tiempo límite de quien inició la importación
+            Deadline limite = Deadline.actual();
+            List<Future<?>> validadores = new ArrayList<>();
+            for (int i = 0; i < hilosValidacion; i++) {
+                validadores.add(hilos.submit(() -> Deadline.ejecutar(limite, () -> {
+                    importacion.validar();
+                    return null;
+                })));
+            }
+            List<Future<?>> escritores = new ArrayList<>();
+            for (int i = 0; i < hilosEscritura; i++) {
+                escritores.add(hilos.submit(() -> Deadline.ejecutar(limite, () -> {
+                    importacion.escribir();
+                    return null;
+                })));
+            }
+
+            importacion.leer(lector);
+            for (int i = 0; i < hilosValidacion; i++) {
+                importacion.poner(importacion.lineas, BloqueLineas.FIN);
+            }
+            importacion.esperar(validadores);
+            for (int i = 0; i < hilosEscritura; i++) {
+                importacion.poner(importacion.productos, BloqueProductos.FIN);
+            }
+            importacion.esperar(escritores);
+
+            Resumen resumen = importacion.resumir(System.nanoTime() - inicio);
+            logger.info("Importación de " + archivo.getFileName() + ": " + resumen);
+            return resumen;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("La importación fue cancelada", ex);
+        } finally {
+            hilos.shutdownNow();
+        }
+    }
+
+    /**
+     * Estado compartido por las etapas de una importación
+     */
+    private class Importacion {
+        private final BlockingQueue<BloqueLineas> lineas = new ArrayBlockingQueue<>(capacidadCola);
+        private final BlockingQueue<BloqueProductos> productos = new ArrayBlockingQueue<>(capacidadCola);
+        private final BufferedWriter errores;
+        private final Progreso progreso;
+        private final AtomicReference<Throwable> fallo = new AtomicReference<>();
+        private final AtomicLong leidas = new AtomicLong();
+        private final AtomicLong insertadas = new AtomicLong();
+        private final AtomicLong actualizadas = new AtomicLong();
+        private final AtomicLong rechazadas = new AtomicLong();
+
+        Importacion(BufferedWriter errores, Progreso progreso) {
+            this.errores = errores;
+            this.progreso = progreso;
+        }
+
+        /**
+         * Etapa 1: lee el archivo y lo entrega por bloques de registros. Un registro
+         * con comillas sin cerrar continúa en las líneas siguientes.
+         */
+        void leer(BufferedReader lector) throws IOException, InterruptedException {
+            long numero = 0;
+            List<String> bloque = new ArrayList<>(tamanoBloque);
+            long[] numeros = new long[tamanoBloque];
+            String linea;
+            while ((linea = lector.readLine()) != null) {
+                numero++;
+                if (numero == 1 && esEncabezado(linea)) {
+                    continue;
+                }
+                long primera = numero;
+                int comillas = contarComillas(linea);
+                String siguiente;
+                while (comillas % 2 != 0 && (siguiente = lector.readLine()) != null) {
+                    numero++;
+                    linea = linea + "\n" + siguiente;
+                    comillas += contarComillas(siguiente);
+                }
+                numeros[bloque.size()] = primera;
+                bloque.add(linea);
+                if (bloque.size() == tamanoBloque) {
+                    poner(lineas, new BloqueLineas(numeros, bloque));
+                    bloque = new ArrayList<>(tamanoBloque);
+                    numeros = new long[tamanoBloque];
+                }
+            }
+            if (!bloque.isEmpty()) {
+                poner(lineas, new BloqueLineas(numeros, bloque));
+            }
+        }
+
+        /**
+         * Etapa 2: separa y valida las filas; las válidas pasan a la escritura
+         */
+        void validar() {
+            try {
+                BloqueLineas bloque;
+                while ((bloque = lineas.take()) != BloqueLineas.FIN) {
+                    BloqueProductos validos = new BloqueProductos(bloque.lineas.size());
+                    List<Product> sinId = new ArrayList<>();
+                    for (int i = 0; i < bloque.lineas.size(); i++) {
+                        String linea = bloque.lineas.get(i);
+                        long numero = bloque.numerosLinea[i];
+                        if (linea.trim().isEmpty()) {
+                            continue;
+                        }
+                        leidas.incrementAndGet();
+                        try {
+                            Product producto = convertir(linea);
+                            if (producto.getProduct_id() == 0) {
+                                sinId.add(producto);
+                            }
+                            validos.agregar(producto, numero, linea);
+                        } catch (IllegalArgumentException ex) {
+                            rechazar(numero, ex.getMessage(), linea);
+                        }
+                    }
+                    // Una sola reserva por bloque para las filas sin ID
+                    int[] ids = ProductManager.reservarIds(sinId.size());
+                    for (int i = 0; i < ids.length; i++) {
+                        sinId.get(i).setProduct_id(ids[i]);
+                    }
+                    informar();
+                    if (!validos.productos.isEmpty()) {
+                        poner(productos, validos);
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable ex) {
+                fallar(ex);
+            }
+        }
+
+        /**
+         * Etapa 3: escribe cada bloque válido en lotes JDBC
+         */
+        void escribir() {
+            try {
+                BloqueProductos bloque;
+                while ((bloque = productos.take()) != BloqueProductos.FIN) {
+                    ResultadoLote resultado = modo == Modo.INSERTAR
+                            ? ProductManager.insertarProductosSiNoExisten(bloque.productos)
+                            : ProductManager.guardarProductos(bloque.productos);
+                    for (int i = 0; i < resultado.getTotal(); i++) {
+                        EstadoFila estado = resultado.getEstado(i);
+                        if (estado == EstadoFila.INSERTADO) {
+                            insertadas.incrementAndGet();
+                        } else if (estado == EstadoFila.ACTUALIZADO) {
+                            actualizadas.incrementAndGet();
+                        } else {
+                            String motivo = estado == EstadoFila.DUPLICADO ? UIConstants.DUPLICATE_ID
+                                    : resultado.getMensaje(i) != null ? resultado.getMensaje(i) : estado.name();
+                            rechazar(bloque.numerosLinea[i], motivo, bloque.lineas.get(i));
+                        }
+                    }
+                    informar();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable ex) {
+                fallar(ex);
+            }
+        }
+
+        /**
+         * Encola un bloque esperando mientras la cola esté llena, salvo que otra
+         * etapa haya fallado
+         */
+        <T> void poner(BlockingQueue<T> cola, T bloque) throws InterruptedException {
+            while (!cola.offer(bloque, ESPERA_MS, TimeUnit.MILLISECONDS)) {
+                verificarFallo();
+            }
+            verificarFallo();
+        }
+
+        /**
+         * Espera a que terminen los hilos de una etapa, salvo que otra haya fallado
+         */
+        void esperar(List<Future<?>> tareas) throws InterruptedException {
+            for (Future<?> tarea : tareas) {
+                while (true) {
+                    verificarFallo();
+                    try {
+                        tarea.get(ESPERA_MS, TimeUnit.MILLISECONDS);
+                        break;
+                    } catch (TimeoutException ex) {
+                        // Seguir esperando
+                    } catch (ExecutionException ex) {
+                        fallar(ex.getCause());
+                    }
+                }
+            }
+            verificarFallo();
+        }
+
+        void verificarFallo() {
+            Throwable error = fallo.get();
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            if (error != null) {
+                throw new IllegalStateException("Error durante la importación", error);
+            }
+        }
+
+        void fallar(Throwable ex) {
+            if (fallo.compareAndSet(null, ex)) {
+                logger.log(Level.SEVERE, "Error durante la importación de productos", ex);
+            }
+        }
+
+        void rechazar(long numero, String motivo, String linea) throws IOException {
+            rechazadas.incrementAndGet();
+            synchronized (errores) {
+                errores.write(numero + "," + citar(motivo) + "," + citar(linea));
+                errores.newLine();
+            }
+        }
+
+        void informar() {
+            if (progreso != null) {
+                long rechazos = rechazadas.get();
+                progreso.actualizar(insertadas.get() + actualizadas.get() + rechazos, rechazos);
+            }
+        }
+
+        Resumen resumir(long nanos) {
+            return new Resumen(leidas.get(), insertadas.get(), actualizadas.get(), rechazadas.get(), nanos);
+        }
+    }
+
+    /**
+     * Convierte una línea del CSV en un producto validado
+     * @param linea Línea con PRODUCT_ID,NAME,PRICE,ACTIVE
+     * @return Producto; su ID es 0 si la columna venía vacía
+     * @throws IllegalArgumentException si la línea no es válida
+     */
+    static Product convertir(String linea) {
+        List<String> campos = separar(linea);
+        if (campos.size() != 4) {
+            throw new IllegalArgumentException("Se esperaban 4 columnas y hay " + campos.size());
+        }
+        int id = 0;
+        String textoId = campos.get(0).trim();
+        if (!textoId.isEmpty()) {
+            try {
+                id = Integer.parseInt(textoId);
+            } catch (NumberFormatException ex) {
+                throw new IllegalArgumentException("El ID debe ser un número entero");
+            }
+            if (id <= 0) {
+                throw new IllegalArgumentException("El ID del producto debe ser un número positivo");
+            }
+        }
+        float precio;
+        try {
+            precio = Float.parseFloat(campos.get(2).trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("El precio debe ser un número");
+        }
+        return new Product(id, campos.get(1), precio, campos.get(3).trim());
+    }
+
+    /**
+     * Separa una línea CSV respetando los campos entre comillas dobles
+     */
+    static List<String> separar(String linea) {
+        List<String> campos = new ArrayList<>(4);
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    campo.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    campo.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else {
+                campo.append(c);
+            }
+        }
+        campos.add(campo.toString());
+        return campos;
+    }
+
+    private static int contarComillas(String linea) {
+        int comillas = 0;
+        for (int i = 0; i < linea.length(); i++) {
+            if (linea.charAt(i) == '"') {
+                comillas++;
+            }
+        }
+        return comillas;
+    }
+
+    private static boolean esEncabezado(String linea) {
+        String limpia = linea.startsWith("\uFEFF") ? linea.substring(1) : linea;
+        return limpia.trim().toUpperCase(Locale.ROOT).startsWith("PRODUCT_ID");
+    }
+
+    private static String citar(String valor) {
+        return "\"" + (valor == null ? "" : valor.replace("\"", "\"\"")) + "\"";
+    }
+
+    /**
+     * Registros consecutivos del archivo junto con la línea donde empieza cada uno
+     */
+    private static class BloqueLineas {
+        static final BloqueLineas FIN = new BloqueLineas(new long[0], Collections.emptyList());
+
+        private final long[] numerosLinea;
+        private final List<String> lineas;
+
+        BloqueLineas(long[] numerosLinea, List<String> lineas) {
+            this.numerosLinea = numerosLinea;
+            this.lineas = lineas;
+        }
+    }
+
+    /**
+     * Productos válidos de un bloque junto con su línea de origen
+     */
+    private static class BloqueProductos {
+        static final BloqueProductos FIN = new BloqueProductos(0);
+
+        private final List<Product> productos;
+        private final long[] numerosLinea;
+        private final List<String> lineas;
+
+        BloqueProductos(int capacidad) {
+            this.productos = new ArrayList<>(capacidad);
+            this.numerosLinea = new long[capacidad];
+            this.lineas = new ArrayList<>(capacidad);
+        }
+
+        void agregar(Product producto, long numero, String linea) {
+            numerosLinea[productos.size()] = numero;
+            productos.add(producto);
+            lineas.add(linea);
+        }
+    }
+
+    /**
+     * Totales de una importación
+     */
+    public static class Resumen {
+        private final long leidas;
+        private final long insertadas;
+        private final long actualizadas;
+        private final long rechazadas;
+        private final long nanos;
+
+        Resumen(long leidas, long insertadas, long actualizadas, long rechazadas, long nanos) {
+            this.leidas = leidas;
+            this.insertadas = insertadas;
+            this.actualizadas = actualizadas;
+            this.rechazadas = rechazadas;
+            this.nanos = nanos;
+        }
+
+        public long getLeidas() {
+            return leidas;
+        }
+
+        public long getInsertadas() {
+            return insertadas;
+        }
+
+        public long getActualizadas() {
+            return actualizadas;
+        }
+
+        public long getRechazadas() {
+            return rechazadas;
+        }
+
+        public double getSegundos() {
+            return nanos / 1_000_000_000.0;
+        }
+
+        /**
+         * @return Filas leídas por segundo durante toda la importación
+         */
+        public double getFilasPorSegundo() {
+            return nanos == 0 ? 0.0 : leidas / getSegundos();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d filas leídas, %d insertadas, %d actualizadas, %d rechazadas en %.1f s (%.0f filas/s)",
+                    leidas, insertadas, actualizadas, rechazadas, getSegundos(), getFilasPorSegundo());
+        }
+    }
+}
@@ -1,14 +1,25 @@
 package edu.gt.rodrigocardenas.umg.utils;
 
 import edu.gt.rodrigocardenas.umg.models.Product;
+import edu.gt.rodrigocardenas.umg.utils.ProductMetrics.Operacion;
+import edu.gt.rodrigocardenas.umg.utils.ResultadoLote.EstadoFila;
+import java.sql.BatchUpdateException;
+import java.sql.CallableStatement;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -20,40 +31,317 @@ public class ProductManager {
     
     private static final Logger logger = Logger.getLogger(ProductManager.class.getName());
     
+    private static final String SQL_INSERTAR = "INSERT INTO UMG.PRODUCTS (product_id, name, price, active) VALUES (?, ?, ?, ?)";
+    private static final String SQL_ACTUALIZAR = "UPDATE UMG.PRODUCTS SET name = ?, price = ?, active = ? WHERE product_id = ?";
+    private static final String SQL_ELIMINAR = "DELETE FROM UMG.PRODUCTS WHERE product_id = ?";
+    private static final String SQL_INSERTAR_SI_NO_EXISTE = "MERGE INTO UMG.PRODUCTS t USING (" +
+                                             "SELECT CAST(? AS NUMBER) AS product_id, CAST(? AS VARCHAR2(100)) AS name, " +
+                                             "CAST(? AS NUMBER(10,2)) AS price, CAST(? AS CHAR(1)) AS active FROM DUAL) s " +
+                                             "ON (t.product_id = s.product_id) " +
+                                             "WHEN NOT MATCHED THEN INSERT (product_id, name, price, active) " +
+                                             "VALUES (s.product_id, s.name, s.price, s.active)";
+    // Actualiza o inserta en un solo viaje e informa cuál de las dos ocurrió (solo Oracle)
+    private static final String SQL_GUARDAR_ORACLE = "DECLARE estado CHAR(1); BEGIN " +
+                                             "BEGIN " +
+                                             "UPDATE UMG.PRODUCTS SET name = ?, price = ?, active = ? WHERE product_id = ?; " +
+                                             "IF SQL%ROWCOUNT > 0 THEN estado := 'A'; " +
+                                             "ELSE INSERT INTO UMG.PRODUCTS (product_id, name, price, active) VALUES (?, ?, ?, ?); " +
+                                             "estado := 'I'; END IF; " +
+                                             "EXCEPTION WHEN DUP_VAL_ON_INDEX THEN estado := 'D'; " +
+                                             "END; " +
+                                             "? := estado; END;";
+    // Columnas en el orden que espera mapearProducto
+    private static final String COLUMNAS = "PRODUCT_ID, NAME, PRICE, ACTIVE";
+    private static final int COL_ID = 1;
+    private static final int COL_NOMBRE = 2;
+    private static final int COL_PRECIO = 3;
+    private static final int COL_ESTADO = 4;
+    
+    private static final String SQL_TODOS = "SELECT " + COLUMNAS + " FROM UMG.PRODUCTS ORDER BY PRODUCT_ID";
+    // El término se busca literalmente: sus %, _ y \ se escapan (ver escaparLike)
+    private static final String SQL_BUSCAR = "SELECT " + COLUMNAS + " FROM UMG.PRODUCTS WHERE " +
+                                             "LOWER(NAME) LIKE LOWER(?) ESCAPE '\\' OR " +
+                                             "CAST(PRODUCT_ID AS VARCHAR2(10)) LIKE ? ESCAPE '\\' " +
+                                             "ORDER BY PRODUCT_ID";
+    private static final String SQL_PAGINA = "SELECT " + COLUMNAS + " FROM UMG.PRODUCTS WHERE PRODUCT_ID > ? " +
+                                             "ORDER BY PRODUCT_ID FETCH FIRST ? ROWS ONLY";
+    private static final String SQL_PAGINA_POR_POSICION = "SELECT " + COLUMNAS + " FROM UMG.PRODUCTS ORDER BY PRODUCT_ID " +
+                                                          "OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+    private static final String SQL_CONTAR = "SELECT COUNT(*) FROM UMG.PRODUCTS";
+    private static final String SQL_POR_ID = "SELECT " + COLUMNAS + " FROM UMG.PRODUCTS WHERE PRODUCT_ID = ?";
+    // Seguimiento de cambios: los triggers mantienen ROW_VERSION y UMG.PRODUCTS_DELETED (ver README)
+    private static final String SQL_CAMBIOS = "SELECT " + COLUMNAS + ", ROW_VERSION FROM UMG.PRODUCTS " +
+                                              "WHERE ROW_VERSION > ? ORDER BY PRODUCT_ID";
+    private static final int COL_VERSION = 5;
+    private static final String SQL_ELIMINADOS = "SELECT PRODUCT_ID, ROW_VERSION FROM UMG.PRODUCTS_DELETED " +
+                                                 "WHERE ROW_VERSION > ? ORDER BY PRODUCT_ID";
+    private static final String SQL_TOKEN = "SELECT GREATEST(" +
+                                            "(SELECT NVL(MAX(ROW_VERSION), 0) FROM UMG.PRODUCTS), " +
+                                            "(SELECT NVL(MAX(ROW_VERSION), 0) FROM UMG.PRODUCTS_DELETED)) FROM DUAL";
+    
+    private static final ProductCache cache = ProductCache.getInstance();
+    private static final ProductSearchIndex indice = ProductSearchIndex.getInstance();
+    private static final ProductMetrics metricas = ProductMetrics.getInstance();
+    
+    // Token de cambios de los datos del catálogo en caché (-1 si no se conoce)
+    private static volatile long tokenCatalogo = -1;
+    // Ordena la publicación de un catálogo leído con las escrituras en caché e índice:
+    // cada escritura incrementa la generación, y un catálogo leído mientras tanto
+    // no se publica porque podría no incluirla
+    private static final Object publicacion = new Object();
+    private static long generacionEscrituras = 0;
+    private static volatile boolean avisoSinSeguimiento = false;
+    
     /**
-     * Obtiene todos los productos de la base de datos
+     * Obtiene todos los productos, desde la caché si contiene el catálogo completo
+     * o desde la base de datos en caso contrario
      * @return Lista de productos
      */
     public static List<Product> obtenerTodosLosProductos() {
-        List<Product> productos = new ArrayList<>();
+        if (ProductTransaction.actual() != null) {
+            // Dentro de una transacción se leen los cambios propios sin llenar la caché
+            try (Stream<Product> stream = streamProductos()) {
+                return stream.collect(Collectors.toCollection(ArrayList::new));
+            }
+        }
+        long generacion = getGeneracionEscrituras();
+        List<Product> enCache = cache.obtenerTodos();
+        if (enCache != null) {
+            if (!indice.isConstruido()) {
+                synchronized (publicacion) {
+                    if (generacion == generacionEscrituras) {
+                        indice.construir(enCache);
+                    }
+                }
+            }
+            return enCache;
+        }
+        
+        long inicio = System.nanoTime();
+        // El token se toma antes de leer: los cambios simultáneos llegan en el siguiente refresco
+        long token = obtenerTokenCambios();
+        List<Product> productos;
+        try (Stream<Product> stream = streamProductos()) {
+            productos = stream.collect(Collectors.toCollection(ArrayList::new));
+        }
+        synchronized (publicacion) {
+            if (generacion == generacionEscrituras) {
+                cache.cargarTodos(productos, System.nanoTime() - inicio);
+                indice.construir(productos);
+                tokenCatalogo = token;
+            } else {
+                logger.fine("Catálogo leído durante una escritura; no se publica en la caché");
+            }
+        }
+        return productos;
+    }
+    
+    private static long getGeneracionEscrituras() {
+        synchronized (publicacion) {
+            return generacionEscrituras;
+        }
+    }
+    
+    /**
+     * Descarta los productos en caché y el índice de búsqueda para que la siguiente
+     * lectura vaya a la base de datos
+     */
+    public static void invalidarCache() {
+        synchronized (publicacion) {
+            generacionEscrituras++;
+            tokenCatalogo = -1;
+            cache.invalidarTodo();
+            indice.invalidar();
+        }
+    }
+    
+    /**
+     * Obtiene el token de cambios actual de la base de datos: la mayor ROW_VERSION
+     * de UMG.PRODUCTS y UMG.PRODUCTS_DELETED
+     * @return Token, o -1 si la base de datos no tiene seguimiento de cambios
+     */
+    public static long obtenerTokenCambios() {
         Connection conn = null;
-        Statement st = null;
+        PreparedStatement ps = null;
         ResultSet rs = null;
         
         try {
-            conn = DriverManager.getConnection(UIConstants.DB_URL, UIConstants.DB_USER, UIConstants.DB_PASSWORD);
-            String sql = "SELECT * FROM UMG.PRODUCTS ORDER BY PRODUCT_ID";
-            st = conn.createStatement();
-            rs = st.executeQuery(sql);
-
-            while (rs.next()) {
-                int productId = rs.getInt("PRODUCT_ID");
-                String productName = rs.getString("NAME");
-                float productPrice = rs.getFloat("PRICE");
-                String productState = rs.getString("ACTIVE");
-
-                Product product = new Product(productId, productName, productPrice, productState);
-                productos.add(product);
+            conn = obtenerConexion();
+            ps = conn.prepareStatement(SQL_TOKEN);
+            rs = ps.executeQuery();
+            return rs.next() ? rs.getLong(1) : 0;
+            
+        } catch (SQLException ex) {
+            // Sin ROW_VERSION la aplicación funciona igual, pero cada refresco relee todo
+            if (!avisoSinSeguimiento) {
+                avisoSinSeguimiento = true;
+                logger.log(Level.WARNING, "La base de datos no tiene seguimiento de cambios (ROW_VERSION)", ex);
             }
-
+            return -1;
+        } finally {
+            cerrarRecursos(rs, ps, conn);
+        }
+    }
+    
+    /**
+     * Obtiene un token de cambios que no es posterior a los datos que devolverá la
+     * siguiente lectura: el del catálogo en caché si sigue vigente o, si no, el
+     * actual de la base de datos
+     * @return Token, o -1 si la base de datos no tiene seguimiento de cambios
+     */
+    public static long obtenerTokenLectura() {
+        long token = tokenCatalogo;
+        if (token >= 0 && cache.isCatalogoCompleto()) {
+            return token;
+        }
+        return obtenerTokenCambios();
+    }
+    
+    /**
+     * @return Token de cambios del catálogo en caché, o -1 si no se conoce
+     */
+    public static long getTokenCatalogo() {
+        return tokenCatalogo;
+    }
+    
+    /**
+     * Obtiene los productos insertados, actualizados o eliminados después del token
+     * y los aplica a la caché y al índice. Como las versiones se asignan antes del
+     * commit, se vuelven a leer las últimas DB_DELTA_OVERLAP versiones para no
+     * perder transacciones que confirmaron tarde; aplicar un cambio dos veces no
+     * tiene efecto.
+     * @param token Token de la lectura o del refresco anterior
+     * @return Cambios, ordenados por ID, con el token para el siguiente refresco
+     */
+    public static CambiosProductos obtenerCambiosDesde(long token) {
+        long inicio = System.nanoTime();
+        long desde = Math.max(0, token - UIConstants.DB_DELTA_OVERLAP);
+        Connection conn = null;
+        
+        try {
+            conn = obtenerConexion();
+            long maximo = token;
+            List<Product> guardados = new ArrayList<>();
+            try (PreparedStatement ps = conn.prepareStatement(SQL_CAMBIOS)) {
+                ps.setFetchSize(UIConstants.DB_FETCH_SIZE);
+                ps.setLong(1, desde);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        guardados.add(mapearProducto(rs));
+                        maximo = Math.max(maximo, rs.getLong(COL_VERSION));
+                    }
+                }
+            }
+            
+            int[] idsGuardados = new int[guardados.size()];
+            for (int i = 0; i < idsGuardados.length; i++) {
+                idsGuardados[i] = guardados.get(i).getProduct_id();
+            }
+            int[] eliminados = new int[16];
+            int totalEliminados = 0;
+            try (PreparedStatement ps = conn.prepareStatement(SQL_ELIMINADOS)) {
+                ps.setLong(1, desde);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        int productId = rs.getInt(1);
+                        maximo = Math.max(maximo, rs.getLong(2));
+                        // Si se volvió a insertar después de eliminarse, solo cuenta la inserción
+                        if (Arrays.binarySearch(idsGuardados, productId) < 0) {
+                            if (totalEliminados == eliminados.length) {
+                                eliminados = Arrays.copyOf(eliminados, totalEliminados * 2);
+                            }
+                            eliminados[totalEliminados++] = productId;
+                        }
+                    }
+                }
+            }
+            metricas.sumarFilasLeidas(guardados.size() + totalEliminados);
+            
+            CambiosProductos cambios = new CambiosProductos(token, maximo, guardados,
+                    Arrays.copyOf(eliminados, totalEliminados));
+            aplicarCambios(cambios);
+            return cambios;
+            
         } catch (SQLException ex) {
-            logger.log(Level.SEVERE, "Error al obtener productos de la base de datos", ex);
-            throw new RuntimeException(UIConstants.CONNECTION_ERROR, ex);
+            logger.log(Level.SEVERE, "Error al obtener cambios de productos", ex);
+            metricas.registrarError(Operacion.CAMBIOS, ex);
+            throw errorDeBaseDeDatos(Operacion.CAMBIOS, ex);
         } finally {
-            cerrarRecursos(rs, st, conn);
+            cerrarRecursos(null, null, conn);
+            metricas.registrar(Operacion.CAMBIOS, inicio);
+        }
+    }
+    
+    /**
+     * Aplica los cambios a la caché y al índice. Si cubren todo lo ocurrido desde
+     * que se cargó el catálogo en caché, este sigue al día y se renueva su vigencia.
+     * Todo ocurre bajo el mismo candado que la publicación del catálogo, para no
+     * mezclarse con una carga completa ni con invalidarCache.
+     */
+    private static void aplicarCambios(CambiosProductos cambios) {
+        ProductTransaction tx = ProductTransaction.actual();
+        if (tx != null) {
+            tx.alConfirmar(() -> aplicarCambios(cambios));
+            return;
+        }
+        synchronized (publicacion) {
+            for (int productId : cambios.getEliminados()) {
+                registrarEliminado(productId);
+            }
+            for (Product producto : cambios.getGuardados()) {
+                registrarGuardado(producto);
+            }
+            long actual = tokenCatalogo;
+            if (actual >= 0 && cambios.getDesde() <= actual) {
+                tokenCatalogo = Math.max(actual, cambios.getToken());
+                cache.renovar();
+                indice.renovar();
+            }
+        }
+    }
+    
+    /**
+     * Obtiene un producto por ID, desde la caché si está disponible
+     * @param productId ID del producto
+     * @return Producto o null si no existe
+     */
+    public static Product obtenerProducto(int productId) {
+        boolean enTransaccion = ProductTransaction.actual() != null;
+        Product enCache = enTransaccion ? null : cache.obtener(productId);
+        if (enCache != null) {
+            return enCache;
         }
         
-        return productos;
+        long inicio = System.nanoTime();
+        Product producto;
+        try (Stream<Product> stream = abrirStream(Operacion.OBTENER, SQL_POR_ID, ps -> ps.setInt(1, productId), 1,
+                "Error al obtener producto de la base de datos")) {
+            producto = stream.findFirst().orElse(null);
+        }
+        if (producto != null && !enTransaccion) {
+            cache.cargar(producto, System.nanoTime() - inicio);
+        }
+        return producto;
+    }
+    
+    /**
+     * Recorre todos los productos ordenados por ID sin cargarlos completos en memoria,
+     * usando el tamaño de fetch por defecto
+     * @return Stream de productos que debe cerrarse al terminar de usarlo
+     */
+    public static Stream<Product> streamProductos() {
+        return streamProductos(UIConstants.DB_FETCH_SIZE);
+    }
+    
+    /**
+     * Recorre todos los productos ordenados por ID sin cargarlos completos en memoria.
+     * La conexión se mantiene abierta solo mientras se recorre el stream: se devuelve
+     * al pool al agotarlo o al cerrarlo.
+     * @param tamanoFetch Filas traídas por cada viaje a la base de datos
+     * @return Stream de productos que debe cerrarse al terminar de usarlo
+     */
+    public static Stream<Product> streamProductos(int tamanoFetch) {
+        return abrirStream(Operacion.OBTENER_TODOS, SQL_TODOS, ps -> { }, tamanoFetch, "Error al obtener productos de la base de datos");
     }
     
     /**
@@ -62,31 +350,33 @@ public class ProductManager {
      * @return true si se insertó correctamente, false en caso contrario
      */
     public static boolean insertarProducto(Product producto) {
+        long inicio = System.nanoTime();
         Connection conn = null;
         PreparedStatement ps = null;
         
         try {
-            conn = DriverManager.getConnection(UIConstants.DB_URL, UIConstants.DB_USER, UIConstants.DB_PASSWORD);
+            conn = obtenerConexion();
 
-            String sql = "INSERT INTO UMG.PRODUCTS (product_id, name, price, active) VALUES (?, ?, ?, ?)";
-
-            ps = conn.prepareStatement(sql);
-            ps.setInt(1, producto.getProduct_id());
-            ps.setString(2, producto.getName());
-            ps.setFloat(3, producto.getPrice());
-            ps.setString(4, producto.getActive());
+            ps = conn.prepareStatement(SQL_INSERTAR);
+            asignarParametrosInsertar(ps, producto);
 
             int rows = ps.executeUpdate();
+            metricas.sumarFilasEscritas(rows);
+            if (rows > 0) {
+                registrarGuardado(producto);
+            }
             return rows > 0;
 
         } catch (SQLException ex) {
             logger.log(Level.SEVERE, "Error al insertar producto en la base de datos", ex);
-            if (ex.getMessage().contains("unique constraint")) {
+            metricas.registrarError(Operacion.INSERTAR, ex);
+            if (esViolacionUnica(ex)) {
                 throw new RuntimeException(UIConstants.DUPLICATE_ID, ex);
             }
-            throw new RuntimeException(UIConstants.CONNECTION_ERROR, ex);
+            throw errorDeBaseDeDatos(Operacion.INSERTAR, ex);
         } finally {
             cerrarRecursos(null, ps, conn);
+            metricas.registrar(Operacion.INSERTAR, inicio);
         }
     }
     
@@ -96,28 +386,33 @@ public class ProductManager {
      * @return true si se actualizó correctamente, false en caso contrario
      */
     public static boolean actualizarProducto(Product producto) {
+        long inicio = System.nanoTime();
         Connection conn = null;
         PreparedStatement ps = null;
         
         try {
-            conn = DriverManager.getConnection(UIConstants.DB_URL, UIConstants.DB_USER, UIConstants.DB_PASSWORD);
-
-            String sql = "UPDATE UMG.PRODUCTS SET name = ?, price = ?, active = ? WHERE product_id = ?";
+            conn = obtenerConexion();
 
-            ps = conn.prepareStatement(sql);
-            ps.setString(1, producto.getName());
-            ps.setFloat(2, producto.getPrice());
-            ps.setString(3, producto.getActive());
-            ps.setInt(4, producto.getProduct_id());
+            ps = conn.prepareStatement(SQL_ACTUALIZAR);
+            asignarParametrosActualizar(ps, producto);
 
             int rows = ps.executeUpdate();
+            metricas.sumarFilasEscritas(rows);
+            if (rows > 0) {
+                registrarGuardado(producto);
+            } else {
+                registrarEliminado(producto.getProduct_id());
+            }
             return rows > 0;
 
         } catch (SQLException ex) {
             logger.log(Level.SEVERE, "Error al actualizar producto en la base de datos", ex);
-            throw new RuntimeException(UIConstants.CONNECTION_ERROR, ex);
+            metricas.registrarError(Operacion.ACTUALIZAR, ex);
+            registrarDesconocido(producto.getProduct_id());
+            throw errorDeBaseDeDatos(Operacion.ACTUALIZAR, ex);
         } finally {
             cerrarRecursos(null, ps, conn);
+            metricas.registrar(Operacion.ACTUALIZAR, inicio);
         }
     }
     
@@ -127,142 +422,789 @@ public class ProductManager {
      * @return true si se eliminó correctamente, false en caso contrario
      */
     public static boolean eliminarProducto(int productId) {
+        long inicio = System.nanoTime();
         Connection conn = null;
         PreparedStatement ps = null;
         
         try {
-            conn = DriverManager.getConnection(UIConstants.DB_URL, UIConstants.DB_USER, UIConstants.DB_PASSWORD);
-
-            String sql = "DELETE FROM UMG.PRODUCTS WHERE product_id = ?";
+            conn = obtenerConexion();
 
-            ps = conn.prepareStatement(sql);
+            ps = conn.prepareStatement(SQL_ELIMINAR);
             ps.setInt(1, productId);
 
             int rows = ps.executeUpdate();
+            metricas.sumarFilasEscritas(rows);
+            registrarEliminado(productId);
             return rows > 0;
 
         } catch (SQLException ex) {
             logger.log(Level.SEVERE, "Error al eliminar producto de la base de datos", ex);
-            throw new RuntimeException(UIConstants.CONNECTION_ERROR, ex);
+            metricas.registrarError(Operacion.ELIMINAR, ex);
+            registrarDesconocido(productId);
+            throw errorDeBaseDeDatos(Operacion.ELIMINAR, ex);
         } finally {
             cerrarRecursos(null, ps, conn);
+            metricas.registrar(Operacion.ELIMINAR, inicio);
         }
     }
     
     /**
-     * Busca productos por ID o nombre
-     * @param busqueda Término de búsqueda
-     * @return Lista de productos que coinciden con la búsqueda
+     * Inserta un producto solo si no existe otro con el mismo ID, en un solo
+     * viaje a la base de datos (MERGE ... WHEN NOT MATCHED)
+     * @param producto Producto a insertar
+     * @return INSERTADO, o DUPLICADO si el ID ya existía
      */
-    public static List<Product> buscarProductos(String busqueda) {
-        List<Product> productos = new ArrayList<>();
+    public static EstadoFila insertarSiNoExiste(Product producto) {
+        long inicio = System.nanoTime();
         Connection conn = null;
         PreparedStatement ps = null;
-        ResultSet rs = null;
         
         try {
-            conn = DriverManager.getConnection(UIConstants.DB_URL, UIConstants.DB_USER, UIConstants.DB_PASSWORD);
-            
-            String sql = "SELECT * FROM UMG.PRODUCTS WHERE " +
-                        "LOWER(NAME) LIKE LOWER(?) OR " +
-                        "CAST(PRODUCT_ID AS VARCHAR2(10)) LIKE ? " +
-                        "ORDER BY PRODUCT_ID";
-            
-            ps = conn.prepareStatement(sql);
-            String searchPattern = "%" + busqueda + "%";
-            ps.setString(1, searchPattern);
-            ps.setString(2, searchPattern);
-            
-            rs = ps.executeQuery();
+            conn = obtenerConexion();
 
-            while (rs.next()) {
-                int productId = rs.getInt("PRODUCT_ID");
-                String productName = rs.getString("NAME");
-                float productPrice = rs.getFloat("PRICE");
-                String productState = rs.getString("ACTIVE");
+            ps = conn.prepareStatement(SQL_INSERTAR_SI_NO_EXISTE);
+            asignarParametrosInsertar(ps, producto);
 
-                Product product = new Product(productId, productName, productPrice, productState);
-                productos.add(product);
+            if (ps.executeUpdate() > 0) {
+                metricas.sumarFilasEscritas(1);
+                registrarGuardado(producto);
+                return EstadoFila.INSERTADO;
             }
+            return EstadoFila.DUPLICADO;
 
         } catch (SQLException ex) {
-            logger.log(Level.SEVERE, "Error al buscar productos en la base de datos", ex);
-            throw new RuntimeException(UIConstants.CONNECTION_ERROR, ex);
+            // Otro cliente pudo insertar el mismo ID entre la comparación y la inserción
+            if (esViolacionUnica(ex)) {
+                return EstadoFila.DUPLICADO;
+            }
+            logger.log(Level.SEVERE, "Error al insertar producto en la base de datos", ex);
+            metricas.registrarError(Operacion.INSERTAR_SI_NO_EXISTE, ex);
+            throw errorDeBaseDeDatos(Operacion.INSERTAR_SI_NO_EXISTE, ex);
         } finally {
-            cerrarRecursos(rs, ps, conn);
+            cerrarRecursos(null, ps, conn);
+            metricas.registrar(Operacion.INSERTAR_SI_NO_EXISTE, inicio);
         }
+    }
+    
+    /**
+     * Actualiza un producto o lo inserta si no existe. En Oracle se resuelve en
+     * un solo viaje con un bloque PL/SQL; en otras bases se ejecuta el UPDATE y,
+     * si no afectó filas, el INSERT dentro de la misma transacción.
+     * @param producto Producto a guardar
+     * @return ACTUALIZADO, INSERTADO, o DUPLICADO si otro cliente insertó el mismo ID a la vez
+     */
+    public static EstadoFila guardarProducto(Product producto) {
+        long inicio = System.nanoTime();
+        Connection conn = null;
         
-        return productos;
+        try {
+            conn = obtenerConexion();
+            EstadoFila estado = esOracle(conn) ? guardarConPlSql(conn, producto) : guardarConDosSentencias(conn, producto);
+            if (estado == EstadoFila.DUPLICADO) {
+                registrarDesconocido(producto.getProduct_id());
+            } else {
+                metricas.sumarFilasEscritas(1);
+                registrarGuardado(producto);
+            }
+            return estado;
+
+        } catch (SQLException ex) {
+            logger.log(Level.SEVERE, "Error al guardar producto en la base de datos", ex);
+            metricas.registrarError(Operacion.GUARDAR, ex);
+            registrarDesconocido(producto.getProduct_id());
+            throw errorDeBaseDeDatos(Operacion.GUARDAR, ex);
+        } finally {
+            cerrarRecursos(null, null, conn);
+            metricas.registrar(Operacion.GUARDAR, inicio);
+        }
+    }
+    
+    private static EstadoFila guardarConPlSql(Connection conn, Product producto) throws SQLException {
+        try (CallableStatement cs = conn.prepareCall(SQL_GUARDAR_ORACLE)) {
+            asignarParametrosActualizar(cs, producto);
+            cs.setInt(5, producto.getProduct_id());
+            cs.setString(6, producto.getName());
+            cs.setFloat(7, producto.getPrice());
+            cs.setString(8, producto.getActive());
+            cs.registerOutParameter(9, Types.CHAR);
+            cs.execute();
+            switch (cs.getString(9)) {
+                case "A":
+                    return EstadoFila.ACTUALIZADO;
+                case "I":
+                    return EstadoFila.INSERTADO;
+                default:
+                    return EstadoFila.DUPLICADO;
+            }
+        }
+    }
+    
+    private static EstadoFila guardarConDosSentencias(Connection conn, Product producto) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            EstadoFila estado;
+            try (PreparedStatement ps = conn.prepareStatement(SQL_ACTUALIZAR)) {
+                asignarParametrosActualizar(ps, producto);
+                estado = ps.executeUpdate() > 0 ? EstadoFila.ACTUALIZADO : null;
+            }
+            if (estado == null) {
+                try (PreparedStatement ps = conn.prepareStatement(SQL_INSERTAR)) {
+                    asignarParametrosInsertar(ps, producto);
+                    ps.executeUpdate();
+                    estado = EstadoFila.INSERTADO;
+                } catch (SQLException ex) {
+                    if (!esViolacionUnica(ex)) {
+                        throw ex;
+                    }
+                    estado = EstadoFila.DUPLICADO;
+                }
+            }
+            conn.commit();
+            return estado;
+        } catch (SQLException ex) {
+            conn.rollback();
+            throw ex;
+        }
     }
     
     /**
-     * Verifica si un producto existe por ID
-     * @param productId ID del producto a verificar
-     * @return true si existe, false en caso contrario
+     * Busca productos por ID o nombre. Usa el índice en memoria si está construido
+     * y recurre a la base de datos en caso contrario.
+     * @param busqueda Término de búsqueda
+     * @return Lista de productos que coinciden con la búsqueda
      */
-    public static boolean existeProducto(int productId) {
+    public static List<Product> buscarProductos(String busqueda) {
+        List<Product> enIndice = ProductTransaction.actual() != null ? null : indice.buscar(busqueda);
+        if (enIndice != null) {
+            return enIndice;
+        }
+        try (Stream<Product> productos = streamBuscarProductos(busqueda, UIConstants.DB_FETCH_SIZE)) {
+            return productos.collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+    
+    /**
+     * Recorre los productos que coinciden con la búsqueda sin cargarlos completos en memoria
+     * @param busqueda Término de búsqueda
+     * @param tamanoFetch Filas traídas por cada viaje a la base de datos
+     * @return Stream de productos que debe cerrarse al terminar de usarlo
+     */
+    public static Stream<Product> streamBuscarProductos(String busqueda, int tamanoFetch) {
+        String searchPattern = "%" + escaparLike(busqueda) + "%";
+        return abrirStream(Operacion.BUSCAR, SQL_BUSCAR, ps -> {
+            ps.setString(1, searchPattern);
+            ps.setString(2, searchPattern);
+        }, tamanoFetch, "Error al buscar productos en la base de datos");
+    }
+    
+    /**
+     * Escapa los comodines de LIKE para que el término coincida como subcadena
+     * literal, igual que en ProductSearchIndex.coincide
+     */
+    private static String escaparLike(String termino) {
+        return termino.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+    
+    /**
+     * Obtiene una página de productos ordenados por ID usando paginación por clave
+     * (keyset): solo lee las filas de la página, sin recorrer las anteriores
+     * @param despuesDeId Último ID de la página anterior (0 para la primera página)
+     * @param tamano Número máximo de productos de la página
+     * @return Productos con ID mayor a despuesDeId
+     */
+    public static List<Product> obtenerPagina(int despuesDeId, int tamano) {
+        try (Stream<Product> productos = abrirStream(Operacion.PAGINA, SQL_PAGINA, ps -> {
+            ps.setInt(1, despuesDeId);
+            ps.setInt(2, tamano);
+        }, tamano, "Error al obtener página de productos")) {
+            return productos.collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+    
+    /**
+     * Obtiene una página de productos por posición. Es más costosa que
+     * {@link #obtenerPagina(int, int)} y solo se usa cuando no se conoce el último ID
+     * de la página anterior, por ejemplo al saltar al final de la tabla.
+     * @param desplazamiento Número de productos a omitir
+     * @param tamano Número máximo de productos de la página
+     * @return Productos de la página
+     */
+    public static List<Product> obtenerPaginaPorPosicion(int desplazamiento, int tamano) {
+        try (Stream<Product> productos = abrirStream(Operacion.PAGINA, SQL_PAGINA_POR_POSICION, ps -> {
+            ps.setInt(1, desplazamiento);
+            ps.setInt(2, tamano);
+        }, tamano, "Error al obtener página de productos")) {
+            return productos.collect(Collectors.toCollection(ArrayList::new));
+        }
+    }
+    
+    /**
+     * Cuenta los productos de la base de datos
+     * @return Número total de productos
+     */
+    public static int contarProductos() {
+        long inicio = System.nanoTime();
         Connection conn = null;
         PreparedStatement ps = null;
         ResultSet rs = null;
         
         try {
-            conn = DriverManager.getConnection(UIConstants.DB_URL, UIConstants.DB_USER, UIConstants.DB_PASSWORD);
-            
-            String sql = "SELECT COUNT(*) FROM UMG.PRODUCTS WHERE PRODUCT_ID = ?";
-            ps = conn.prepareStatement(sql);
-            ps.setInt(1, productId);
-            
+            conn = obtenerConexion();
+            ps = conn.prepareStatement(SQL_CONTAR);
             rs = ps.executeQuery();
             if (rs.next()) {
-                return rs.getInt(1) > 0;
+                return rs.getInt(1);
             }
             
         } catch (SQLException ex) {
-            logger.log(Level.SEVERE, "Error al verificar existencia del producto", ex);
-            throw new RuntimeException(UIConstants.CONNECTION_ERROR, ex);
+            logger.log(Level.SEVERE, "Error al contar productos", ex);
+            metricas.registrarError(Operacion.CONTAR, ex);
+            throw errorDeBaseDeDatos(Operacion.CONTAR, ex);
         } finally {
             cerrarRecursos(rs, ps, conn);
+            metricas.registrar(Operacion.CONTAR, inicio);
         }
         
-        return false;
+        return 0;
     }
     
     /**
-     * Obtiene el siguiente ID disponible para un nuevo producto
+     * Verifica si un producto existe por ID, consultando primero la caché
+     * @param productId ID del producto a verificar
+     * @return true si existe, false en caso contrario
+     */
+    public static boolean existeProducto(int productId) {
+        Boolean enCache = ProductTransaction.actual() != null ? null : cache.contiene(productId);
+        if (enCache != null) {
+            return enCache;
+        }
+        return obtenerProducto(productId) != null;
+    }
+    
+    /**
+     * Obtiene el siguiente ID disponible para un nuevo producto. Los IDs se
+     * reservan por bloques en la secuencia UMG.PRODUCTS_SEQ, por lo que dos
+     * clientes nunca reciben el mismo ID.
      * @return Siguiente ID disponible
      */
     public static int obtenerSiguienteId() {
+        return IdAllocator.getInstance().siguienteId();
+    }
+    
+    /**
+     * Reserva IDs para una carga masiva
+     * @param cantidad Número de IDs requeridos
+     * @return IDs reservados en orden ascendente
+     */
+    public static int[] reservarIds(int cantidad) {
+        return IdAllocator.getInstance().reservarIds(cantidad);
+    }
+    
+    /**
+     * Inserta varios productos usando lotes JDBC con el tamaño de lote y el intervalo
+     * de commit por defecto
+     * @param productos Productos a insertar
+     * @return Resultado por fila (INSERTADO, DUPLICADO o ERROR)
+     */
+    public static ResultadoLote insertarProductos(List<Product> productos) {
+        return insertarProductos(productos, UIConstants.DB_BATCH_SIZE, UIConstants.DB_COMMIT_INTERVAL);
+    }
+    
+    /**
+     * Inserta varios productos usando lotes JDBC
+     * @param productos Productos a insertar
+     * @param tamanoLote Filas enviadas por cada viaje a la base de datos
+     * @param intervaloCommit Filas procesadas entre cada commit
+     * @return Resultado por fila (INSERTADO, DUPLICADO o ERROR)
+     */
+    public static ResultadoLote insertarProductos(List<Product> productos, int tamanoLote, int intervaloCommit) {
+        ResultadoLote resultado = ejecutarLote(SQL_INSERTAR, productos.size(),
+                (ps, i) -> asignarParametrosInsertar(ps, productos.get(i)),
+                EstadoFila.INSERTADO, EstadoFila.NO_ENCONTRADO, tamanoLote, intervaloCommit);
+        sincronizarCache(resultado, productos);
+        return resultado;
+    }
+    
+    /**
+     * Actualiza varios productos usando lotes JDBC con el tamaño de lote y el intervalo
+     * de commit por defecto
+     * @param productos Productos a actualizar
+     * @return Resultado por fila (ACTUALIZADO, NO_ENCONTRADO o ERROR)
+     */
+    public static ResultadoLote actualizarProductos(List<Product> productos) {
+        return actualizarProductos(productos, UIConstants.DB_BATCH_SIZE, UIConstants.DB_COMMIT_INTERVAL);
+    }
+    
+    /**
+     * Actualiza varios productos usando lotes JDBC
+     * @param productos Productos a actualizar
+     * @param tamanoLote Filas enviadas por cada viaje a la base de datos
+     * @param intervaloCommit Filas procesadas entre cada commit
+     * @return Resultado por fila (ACTUALIZADO, NO_ENCONTRADO o ERROR)
+     */
+    public static ResultadoLote actualizarProductos(List<Product> productos, int tamanoLote, int intervaloCommit) {
+        ResultadoLote resultado = ejecutarLote(SQL_ACTUALIZAR, productos.size(),
+                (ps, i) -> asignarParametrosActualizar(ps, productos.get(i)),
+                EstadoFila.ACTUALIZADO, EstadoFila.NO_ENCONTRADO, tamanoLote, intervaloCommit);
+        sincronizarCache(resultado, productos);
+        return resultado;
+    }
+    
+    /**
+     * Elimina varios productos usando lotes JDBC con el tamaño de lote y el intervalo
+     * de commit por defecto
+     * @param productIds IDs de los productos a eliminar
+     * @return Resultado por fila (ELIMINADO, NO_ENCONTRADO o ERROR)
+     */
+    public static ResultadoLote eliminarProductos(int[] productIds) {
+        return eliminarProductos(productIds, UIConstants.DB_BATCH_SIZE, UIConstants.DB_COMMIT_INTERVAL);
+    }
+    
+    /**
+     * Elimina varios productos usando lotes JDBC
+     * @param productIds IDs de los productos a eliminar
+     * @param tamanoLote Filas enviadas por cada viaje a la base de datos
+     * @param intervaloCommit Filas procesadas entre cada commit
+     * @return Resultado por fila (ELIMINADO, NO_ENCONTRADO o ERROR)
+     */
+    public static ResultadoLote eliminarProductos(int[] productIds, int tamanoLote, int intervaloCommit) {
+        ResultadoLote resultado = ejecutarLote(SQL_ELIMINAR, productIds.length,
+                (ps, i) -> ps.setInt(1, productIds[i]),
+                EstadoFila.ELIMINADO, EstadoFila.NO_ENCONTRADO, tamanoLote, intervaloCommit);
+        for (int i = 0; i < productIds.length; i++) {
+            if (resultado.getEstado(i) == EstadoFila.ERROR) {
+                registrarDesconocido(productIds[i]);
+            } else {
+                registrarEliminado(productIds[i]);
+            }
+        }
+        return resultado;
+    }
+    
+    /**
+     * Inserta los productos cuyo ID no existe, en lotes de MERGE ... WHEN NOT MATCHED,
+     * con el tamaño de lote y el intervalo de commit por defecto
+     * @param productos Productos a insertar
+     * @return Resultado por fila (INSERTADO, DUPLICADO o ERROR)
+     */
+    public static ResultadoLote insertarProductosSiNoExisten(List<Product> productos) {
+        ResultadoLote resultado = ejecutarLote(SQL_INSERTAR_SI_NO_EXISTE, productos.size(),
+                (ps, i) -> asignarParametrosInsertar(ps, productos.get(i)),
+                EstadoFila.INSERTADO, EstadoFila.DUPLICADO, UIConstants.DB_BATCH_SIZE, UIConstants.DB_COMMIT_INTERVAL);
+        sincronizarCache(resultado, productos);
+        return resultado;
+    }
+    
+    /**
+     * Actualiza o inserta varios productos: primero un lote de UPDATE y luego un
+     * lote de MERGE ... WHEN NOT MATCHED con las filas que no existían, de modo
+     * que cada fila informa si fue actualizada o insertada
+     * @param productos Productos a guardar
+     * @return Resultado por fila (ACTUALIZADO, INSERTADO, DUPLICADO o ERROR)
+     */
+    public static ResultadoLote guardarProductos(List<Product> productos) {
+        ResultadoLote resultado = ejecutarLote(SQL_ACTUALIZAR, productos.size(),
+                (ps, i) -> asignarParametrosActualizar(ps, productos.get(i)),
+                EstadoFila.ACTUALIZADO, EstadoFila.NO_ENCONTRADO, UIConstants.DB_BATCH_SIZE, UIConstants.DB_COMMIT_INTERVAL);
+        
+        List<Integer> faltantes = new ArrayList<>();
+        for (int i = 0; i < resultado.getTotal(); i++) {
+            if (resultado.getEstado(i) == EstadoFila.NO_ENCONTRADO) {
+                faltantes.add(i);
+            }
+        }
+        if (!faltantes.isEmpty()) {
+            ResultadoLote insertados = ejecutarLote(SQL_INSERTAR_SI_NO_EXISTE, faltantes.size(),
+                    (ps, i) -> asignarParametrosInsertar(ps, productos.get(faltantes.get(i))),
+                    EstadoFila.INSERTADO, EstadoFila.DUPLICADO, UIConstants.DB_BATCH_SIZE, UIConstants.DB_COMMIT_INTERVAL);
+            for (int i = 0; i < faltantes.size(); i++) {
+                resultado.registrar(faltantes.get(i), insertados.getEstado(i), insertados.getMensaje(i));
+            }
+        }
+        sincronizarCache(resultado, productos);
+        return resultado;
+    }
+    
+    /**
+     * Aplica a la caché y al índice el resultado de un lote de inserciones o actualizaciones
+     */
+    private static void sincronizarCache(ResultadoLote resultado, List<Product> productos) {
+        for (int i = 0; i < resultado.getTotal(); i++) {
+            EstadoFila estado = resultado.getEstado(i);
+            if (estado == EstadoFila.INSERTADO || estado == EstadoFila.ACTUALIZADO) {
+                registrarGuardado(productos.get(i));
+            } else if (estado == EstadoFila.NO_ENCONTRADO) {
+                registrarEliminado(productos.get(i).getProduct_id());
+            } else if (estado == EstadoFila.ERROR) {
+                registrarDesconocido(productos.get(i).getProduct_id());
+            }
+        }
+    }
+    
+    /**
+     * Refleja en la caché y en el índice un producto insertado o actualizado
+     */
+    private static void registrarGuardado(Product producto) {
+        if (diferirEnTransaccion(() -> registrarGuardado(producto))) {
+            return;
+        }
+        synchronized (publicacion) {
+            generacionEscrituras++;
+            cache.guardar(producto);
+            indice.guardar(producto);
+        }
+    }
+    
+    /**
+     * Refleja en la caché y en el índice un producto que ya no existe
+     */
+    private static void registrarEliminado(int productId) {
+        if (diferirEnTransaccion(() -> registrarEliminado(productId))) {
+            return;
+        }
+        synchronized (publicacion) {
+            generacionEscrituras++;
+            cache.invalidar(productId);
+            indice.eliminar(productId);
+        }
+    }
+    
+    /**
+     * Descarta la información local de un producto cuya escritura falló: la caché lo
+     * olvida y el índice deja de usarse hasta reconstruirse
+     */
+    private static void registrarDesconocido(int productId) {
+        if (diferirEnTransaccion(() -> registrarDesconocido(productId))) {
+            return;
+        }
+        synchronized (publicacion) {
+            generacionEscrituras++;
+            cache.invalidar(productId);
+            indice.invalidar();
+        }
+    }
+    
+    /**
+     * Dentro de una transacción, deja la acción sobre la caché para después del
+     * commit: otros hilos no deben ver cambios que aún pueden revertirse
+     * @return true si la acción se difirió
+     */
+    private static boolean diferirEnTransaccion(Runnable accion) {
+        ProductTransaction tx = ProductTransaction.actual();
+        if (tx == null) {
+            return false;
+        }
+        tx.alConfirmar(accion);
+        return true;
+    }
+    
+    /**
+     * Abre una consulta de productos y la expone como un stream perezoso
+     * @param operacion Operación a la que se atribuyen la latencia y las filas leídas
+     * @param sql Consulta de productos
+     * @param parametros Asigna los parámetros de la consulta
+     * @param tamanoFetch Filas traídas por cada viaje a la base de datos
+     * @param mensajeError Mensaje registrado si la consulta falla
+     * @return Stream que libera la conexión al agotarse o cerrarse
+     */
+    private static Stream<Product> abrirStream(Operacion operacion, String sql, ParametrosConsulta parametros,
+                                               int tamanoFetch, String mensajeError) {
+        long inicio = System.nanoTime();
         Connection conn = null;
-        Statement st = null;
+        PreparedStatement ps = null;
         ResultSet rs = null;
         
         try {
-            conn = DriverManager.getConnection(UIConstants.DB_URL, UIConstants.DB_USER, UIConstants.DB_PASSWORD);
-            
-            String sql = "SELECT MAX(PRODUCT_ID) FROM UMG.PRODUCTS";
-            st = conn.createStatement();
-            rs = st.executeQuery(sql);
+            conn = obtenerConexion();
+            ps = conn.prepareStatement(sql);
+            ps.setFetchSize(tamanoFetch);
+            parametros.asignar(ps);
+            rs = ps.executeQuery();
+        } catch (SQLException ex) {
+            logger.log(Level.SEVERE, mensajeError, ex);
+            cerrarRecursos(rs, ps, conn);
+            metricas.registrarError(operacion, ex);
+            metricas.registrar(operacion, inicio);
+            throw errorDeBaseDeDatos(operacion, ex);
+        }
+        
+        CursorProductos cursor = new CursorProductos(rs, ps, conn, operacion, inicio, mensajeError);
+        return StreamSupport.stream(cursor, false).onClose(cursor::cerrar);
+    }
+    
+    /**
+     * Convierte la fila actual del ResultSet en un producto. Lee las columnas por
+     * posición (ver COLUMNAS) y omite las validaciones del constructor, ya que los
+     * datos se validaron al guardarse.
+     */
+    private static Product mapearProducto(ResultSet rs) throws SQLException {
+        return Product.desdeBaseDeDatos(
+                rs.getInt(COL_ID),
+                rs.getString(COL_NOMBRE),
+                rs.getFloat(COL_PRECIO),
+                rs.getString(COL_ESTADO));
+    }
+    
+    /**
+     * Cursor sobre un ResultSet de productos que libera sus recursos al agotarse
+     * y registra la latencia de la consulta y las filas leídas al cerrarse
+     */
+    private static class CursorProductos extends Spliterators.AbstractSpliterator<Product> {
+        private final ResultSet rs;
+        private final Statement st;
+        private final Connection conn;
+        private final Operacion operacion;
+        private final long inicio;
+        private final String mensajeError;
+        // Límite de quien abrió la consulta: la lectura puede continuar en otro hilo
+        private final Deadline limite = Deadline.actual();
+        private long filas = 0;
+        private boolean cerrado = false;
+        
+        CursorProductos(ResultSet rs, Statement st, Connection conn, Operacion operacion, long inicio,
+                        String mensajeError) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.rs = rs;
+            this.st = st;
+            this.conn = conn;
+            this.operacion = operacion;
+            this.inicio = inicio;
+            this.mensajeError = mensajeError;
+        }
+        
+        @Override
+        public boolean tryAdvance(Consumer<? super Product> accion) {
+            if (cerrado) {
+                return false;
+            }
+            if (limite != null && limite.isVencido()) {
+                cerrar();
+                throw new TiempoAgotadoException(operacion.getNombre() + ": lectura de resultados",
+                        limite.getPresupuestoMs(), null);
+            }
+            try {
+                if (!rs.next()) {
+                    cerrar();
+                    return false;
+                }
+                filas++;
+                accion.accept(mapearProducto(rs));
+                return true;
+            } catch (SQLException ex) {
+                logger.log(Level.SEVERE, mensajeError, ex);
+                metricas.registrarError(operacion, ex);
+                cerrar();
+                throw errorDeBaseDeDatos(operacion, ex);
+            }
+        }
+        
+        void cerrar() {
+            if (!cerrado) {
+                cerrado = true;
+                cerrarRecursos(rs, st, conn);
+                metricas.sumarFilasLeidas(filas);
+                metricas.registrar(operacion, inicio);
+            }
+        }
+    }
+    
+    /**
+     * Asigna los parámetros de una consulta
+     */
+    private interface ParametrosConsulta {
+        void asignar(PreparedStatement ps) throws SQLException;
+    }
+    
+    /**
+     * Ejecuta una sentencia en lotes JDBC y registra el estado de cada fila.
+     * Si una fila falla dentro de un lote, las filas anteriores se conservan y
+     * el procesamiento continúa con la fila siguiente.
+     * @param sql Sentencia a ejecutar por cada fila
+     * @param total Número de filas
+     * @param parametros Asigna los parámetros de la fila indicada
+     * @param estadoExito Estado de las filas que afectaron al menos un registro
+     * @param estadoSinFilas Estado de las filas que no afectaron ningún registro
+     * @param tamanoLote Filas enviadas por cada viaje a la base de datos
+     * @param intervaloCommit Filas procesadas entre cada commit
+     * @return Resultado por fila
+     */
+    private static ResultadoLote ejecutarLote(String sql, int total, ParametrosFila parametros,
+                                              EstadoFila estadoExito, EstadoFila estadoSinFilas,
+                                              int tamanoLote, int intervaloCommit) {
+        if (tamanoLote <= 0 || intervaloCommit <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote y el intervalo de commit deben ser positivos");
+        }
+        
+        long inicioLote = System.nanoTime();
+        ResultadoLote resultado = new ResultadoLote(total);
+        Connection conn = null;
+        PreparedStatement ps = null;
+        
+        try {
+            conn = obtenerConexion();
+            conn.setAutoCommit(false);
+            ps = conn.prepareStatement(sql);
             
-            if (rs.next()) {
-                int maxId = rs.getInt(1);
-                return maxId + 1;
+            int inicio = 0;
+            int sinConfirmar = 0;
+            while (inicio < total) {
+                int fin = Math.min(inicio + tamanoLote, total);
+                for (int i = inicio; i < fin; i++) {
+                    parametros.asignar(ps, i);
+                    ps.addBatch();
+                }
+                
+                int procesadas;
+                try {
+                    registrarConteos(resultado, ps.executeBatch(), inicio, estadoExito, estadoSinFilas, null);
+                    procesadas = fin - inicio;
+                } catch (BatchUpdateException ex) {
+                    ps.clearBatch();
+                    int[] conteos = ex.getUpdateCounts() != null ? ex.getUpdateCounts() : new int[0];
+                    registrarConteos(resultado, conteos, inicio, estadoExito, estadoSinFilas, ex);
+                    if (conteos.length < fin - inicio) {
+                        // El driver se detuvo en la primera fila fallida: se reanuda después de ella
+                        registrarFallo(resultado, inicio + conteos.length, ex);
+                        procesadas = conteos.length + 1;
+                    } else {
+                        procesadas = fin - inicio;
+                    }
+                }
+                
+                inicio += procesadas;
+                sinConfirmar += procesadas;
+                if (sinConfirmar >= intervaloCommit) {
+                    conn.commit();
+                    sinConfirmar = 0;
+                }
             }
+            conn.commit();
+            metricas.sumarFilasEscritas(resultado.contar(estadoExito));
             
         } catch (SQLException ex) {
-            logger.log(Level.SEVERE, "Error al obtener siguiente ID", ex);
-            throw new RuntimeException(UIConstants.CONNECTION_ERROR, ex);
+            logger.log(Level.SEVERE, "Error al ejecutar lote de productos en la base de datos", ex);
+            metricas.registrarError(Operacion.LOTE, ex);
+            // Parte del lote pudo haberse confirmado: la caché ya no es confiable
+            invalidarCache();
+            throw errorDeBaseDeDatos(Operacion.LOTE, ex);
         } finally {
-            cerrarRecursos(rs, st, conn);
+            cerrarRecursos(null, ps, conn);
+            metricas.registrar(Operacion.LOTE, inicioLote);
         }
         
-        return 1; // Si no hay productos, empezar con ID 1
+        return resultado;
+    }
+    
+    /**
+     * Registra el estado de las filas según los conteos devueltos por el driver
+     */
+    private static void registrarConteos(ResultadoLote resultado, int[] conteos, int inicio,
+                                         EstadoFila estadoExito, EstadoFila estadoSinFilas,
+                                         SQLException error) {
+        for (int i = 0; i < conteos.length; i++) {
+            if (conteos[i] == Statement.EXECUTE_FAILED) {
+                registrarFallo(resultado, inicio + i, error);
+            } else if (conteos[i] > 0 || conteos[i] == Statement.SUCCESS_NO_INFO) {
+                resultado.registrar(inicio + i, estadoExito, null);
+            } else {
+                resultado.registrar(inicio + i, estadoSinFilas, null);
+            }
+        }
+    }
+    
+    /**
+     * Registra una fila fallida como DUPLICADO o ERROR según la causa
+     */
+    private static void registrarFallo(ResultadoLote resultado, int indice, SQLException error) {
+        if (error != null && esViolacionUnica(error)) {
+            resultado.registrar(indice, EstadoFila.DUPLICADO, UIConstants.DUPLICATE_ID);
+        } else {
+            resultado.registrar(indice, EstadoFila.ERROR, error != null ? error.getMessage() : null);
+        }
+    }
+    
+    /**
+     * Verifica si el error corresponde a una clave primaria o única duplicada
+     * (ORA-00001 en Oracle, SQLSTATE 23505 en bases compatibles con el estándar)
+     * @param ex Error de la base de datos
+     * @return true si es una violación de restricción única
+     */
+    private static boolean esViolacionUnica(SQLException ex) {
+        // SQLException recorre tanto las excepciones encadenadas como sus causas
+        for (Throwable actual : ex) {
+            if (actual instanceof SQLException) {
+                SQLException sqlEx = (SQLException) actual;
+                if (sqlEx.getErrorCode() == 1 || "23505".equals(sqlEx.getSQLState())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    private static void asignarParametrosInsertar(PreparedStatement ps, Product producto) throws SQLException {
+        ps.setInt(1, producto.getProduct_id());
+        ps.setString(2, producto.getName());
+        ps.setFloat(3, producto.getPrice());
+        ps.setString(4, producto.getActive());
+    }
+    
+    private static void asignarParametrosActualizar(PreparedStatement ps, Product producto) throws SQLException {
+        ps.setString(1, producto.getName());
+        ps.setFloat(2, producto.getPrice());
+        ps.setString(3, producto.getActive());
+        ps.setInt(4, producto.getProduct_id());
+    }
+    
+    /**
+     * Asigna los parámetros de una fila de un lote
+     */
+    private interface ParametrosFila {
+        void asignar(PreparedStatement ps, int indice) throws SQLException;
+    }
+    
+    /**
+     * Verifica si la conexión es a Oracle (y no a la base embebida de los benchmarks)
+     */
+    private static boolean esOracle(Connection conn) throws SQLException {
+        return conn.getMetaData().getDatabaseProductName().startsWith("Oracle");
+    }
+    
+    /**
+     * Obtiene la conexión de la transacción abierta en el hilo o, si no hay, una
+     * del pool compartido
+     * @return Conexión que vuelve al pool al cerrarse (o al terminar la transacción)
+     * @throws SQLException si no se pudo obtener la conexión
+     */
+    private static Connection obtenerConexion() throws SQLException {
+        ProductTransaction tx = ProductTransaction.actual();
+        if (tx != null) {
+            return tx.getConexion();
+        }
+        return ConnectionPool.getInstance().getConnection();
+    }
+    
+    /**
+     * Convierte un error de base de datos en la excepción que reciben los llamadores:
+     * TiempoAgotadoException si se agotó un tiempo límite, o RuntimeException con
+     * CONNECTION_ERROR en cualquier otro caso
+     * @param operacion Operación que falló
+     * @param ex Error de la base de datos
+     * @return Excepción a lanzar
+     */
+    static RuntimeException errorDeBaseDeDatos(Operacion operacion, SQLException ex) {
+        if (ProductMetrics.clasificar(ex) == ProductMetrics.TipoError.TIEMPO_AGOTADO) {
+            Deadline limite = Deadline.actual();
+            return new TiempoAgotadoException(operacion.getNombre(), limite != null ? limite.getPresupuestoMs() : 0, ex);
+        }
+        return new RuntimeException(UIConstants.CONNECTION_ERROR, ex);
     }
     
     /**
      * Cierra los recursos de base de datos
      * @param rs ResultSet a cerrar
      * @param st Statement a cerrar
-     * @param conn Connection a cerrar
+     * @param conn Connection a cerrar (se devuelve al pool)
      */
     private static void cerrarRecursos(ResultSet rs, Statement st, Connection conn) {
         try {
@@ -0,0 +1,312 @@
+package edu.gt.rodrigocardenas.umg.utils;
+
+import java.lang.management.ManagementFactory;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Métricas por operación de ProductManager y del pool de conexiones: latencias,
+ * filas leídas y escritas y errores por tipo. Registrar una medición no asigna
+ * objetos, por lo que puede usarse en cada operación. Las métricas se publican
+ * como MXBeans bajo el dominio edu.gt.rodrigocardenas.umg (visibles con jconsole).
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public final class ProductMetrics implements ProductMetricsMXBean {
+
+    private static final Logger logger = Logger.getLogger(ProductMetrics.class.getName());
+    private static final String NOMBRE_JMX = "edu.gt.rodrigocardenas.umg:type=ProductManager";
+    private static final ProductMetrics instancia = new ProductMetrics();
+
+    static {
+        instancia.registrarEnJmx();
+    }
+
+    /**
+     * Operaciones medidas. Las consultas se miden desde que se pide la conexión
+     * hasta que se cierra el cursor.
+     */
+    public enum Operacion {
+        OBTENER_TODOS("obtenerTodosLosProductos"),
+        OBTENER("obtenerProducto"),
+        BUSCAR("buscarProductos"),
+        PAGINA("obtenerPagina"),
+        CONTAR("contarProductos"),
+        INSERTAR("insertarProducto"),
+        ACTUALIZAR("actualizarProducto"),
+        ELIMINAR("eliminarProducto"),
+        INSERTAR_SI_NO_EXISTE("insertarSiNoExiste"),
+        GUARDAR("guardarProducto"),
+        LOTE("lote"),
+        TRANSACCION("transaccion"),
+        CAMBIOS("obtenerCambiosDesde"),
+        RESERVAR_IDS("reservarIds"),
+        ADQUIRIR_CONEXION("adquirirConexion"),
+        ABRIR_CONEXION("abrirConexion");
+
+        private final String nombre;
+
+        Operacion(String nombre) {
+            this.nombre = nombre;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+    }
+
+    /**
+     * Clasificación de los errores de base de datos
+     */
+    public enum TipoError {
+        CONEXION, TIEMPO_AGOTADO, RESTRICCION, OTRO
+    }
+
+    private final MetricasOperacion[] operaciones = new MetricasOperacion[Operacion.values().length];
+    private final LongAdder[] errores = new LongAdder[TipoError.values().length];
+    private final LongAdder filasLeidas = new LongAdder();
+    private final LongAdder filasEscritas = new LongAdder();
+
+    private ProductMetrics() {
+        for (int i = 0; i < operaciones.length; i++) {
+            operaciones[i] = new MetricasOperacion();
+        }
+        for (int i = 0; i < errores.length; i++) {
+            errores[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @return Métricas compartidas por ProductManager y el pool de conexiones
+     */
+    public static ProductMetrics getInstance() {
+        return instancia;
+    }
+
+    /**
+     * Registra la duración de una operación
+     * @param operacion Operación medida
+     * @param inicioNanos Valor de System.nanoTime() al iniciar la operación
+     */
+    public void registrar(Operacion operacion, long inicioNanos) {
+        MetricasOperacion metricas = operaciones[operacion.ordinal()];
+        metricas.latencias.registrar(System.nanoTime() - inicioNanos);
+        // Consumo del tiempo límite de la operación, si el hilo tiene uno
+        Deadline limite = Deadline.actual();
+        if (limite != null) {
+            metricas.conPresupuesto.increment();
+            if (limite.isVencido()) {
+                metricas.presupuestoAgotado.increment();
+            } else {
+                metricas.presupuestoRestante.registrar(limite.getRestanteNanos());
+            }
+        }
+    }
+
+    /**
+     * Registra un error de base de datos de una operación y lo cuenta por tipo.
+     * Se usa en la operación más externa, para que cada error se cuente una sola vez.
+     * @param operacion Operación que falló
+     * @param ex Error de la base de datos
+     */
+    public void registrarError(Operacion operacion, SQLException ex) {
+        operaciones[operacion.ordinal()].errores.increment();
+        errores[clasificar(ex).ordinal()].increment();
+    }
+
+    /**
+     * Registra el fallo de una etapa interna (abrir u obtener una conexión) sin
+     * contarlo por tipo: el error llega a la operación que la pidió y esta lo
+     * registra con {@link #registrarError(Operacion, SQLException)}
+     * @param operacion Etapa que falló
+     */
+    public void registrarFallo(Operacion operacion) {
+        operaciones[operacion.ordinal()].errores.increment();
+    }
+
+    public void sumarFilasLeidas(long filas) {
+        filasLeidas.add(filas);
+    }
+
+    public void sumarFilasEscritas(long filas) {
+        filasEscritas.add(filas);
+    }
+
+    /**
+     * @param operacion Operación
+     * @return Métricas de la operación
+     */
+    public OperationMetricsMXBean getOperacion(Operacion operacion) {
+        return operaciones[operacion.ordinal()];
+    }
+
+    /**
+     * @param tipo Tipo de error
+     * @return Errores registrados de ese tipo
+     */
+    public long getErrores(TipoError tipo) {
+        return errores[tipo.ordinal()].sum();
+    }
+
+    @Override
+    public long getFilasLeidas() {
+        return filasLeidas.sum();
+    }
+
+    @Override
+    public long getFilasEscritas() {
+        return filasEscritas.sum();
+    }
+
+    @Override
+    public long getErroresConexion() {
+        return getErrores(TipoError.CONEXION);
+    }
+
+    @Override
+    public long getErroresTiempoAgotado() {
+        return getErrores(TipoError.TIEMPO_AGOTADO);
+    }
+
+    @Override
+    public long getErroresRestriccion() {
+        return getErrores(TipoError.RESTRICCION);
+    }
+
+    @Override
+    public long getErroresOtros() {
+        return getErrores(TipoError.OTRO);
+    }
+
+    @Override
+    public void reiniciar() {
+        for (MetricasOperacion metricas : operaciones) {
+            metricas.latencias.reiniciar();
+            metricas.errores.reset();
+            metricas.conPresupuesto.reset();
+            metricas.presupuestoAgotado.reset();
+            metricas.presupuestoRestante.reiniciar();
+        }
+        for (LongAdder contador : errores) {
+            contador.reset();
+        }
+        filasLeidas.reset();
+        filasEscritas.reset();
+    }
+
+    /**
+     * Clasifica un error según su tipo de excepción, su SQLSTATE (08 conexión,
+     * 23 restricción) o el código de Oracle (ORA-00001, ORA-01013)
+     * @param ex Error de la base de datos
+     * @return Tipo de error
+     */
+    public static TipoError clasificar(SQLException ex) {
+        String estado = ex.getSQLState() != null ? ex.getSQLState() : "";
+        if (ex instanceof SQLTimeoutException || ex.getErrorCode() == 1013) {
+            return TipoError.TIEMPO_AGOTADO;
+        }
+        if (ex instanceof SQLTransientConnectionException || ex instanceof SQLNonTransientConnectionException
+                || ex instanceof SQLRecoverableException || estado.startsWith("08")) {
+            return TipoError.CONEXION;
+        }
+        if (ex instanceof SQLIntegrityConstraintViolationException || ex.getErrorCode() == 1
+                || estado.startsWith("23")) {
+            return TipoError.RESTRICCION;
+        }
+        return TipoError.OTRO;
+    }
+
+    /**
+     * Publica las métricas generales y una entrada por operación en el servidor
+     * de MBeans de la plataforma
+     */
+    private void registrarEnJmx() {
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            registrar(servidor, new ObjectName(NOMBRE_JMX), this);
+            for (Operacion operacion : Operacion.values()) {
+                registrar(servidor, new ObjectName(NOMBRE_JMX + ",operacion=" + operacion.getNombre()),
+                        operaciones[operacion.ordinal()]);
+            }
+        } catch (JMException | RuntimeException ex) {
+            logger.log(Level.WARNING, "No se pudieron publicar las métricas por JMX", ex);
+        }
+    }
+
+    private static void registrar(MBeanServer servidor, ObjectName nombre, Object mbean) throws JMException {
+        if (servidor.isRegistered(nombre)) {
+            servidor.unregisterMBean(nombre);
+        }
+        servidor.registerMBean(mbean, nombre);
+    }
+
+    /**
+     * Latencias, errores y consumo del tiempo límite de una operación
+     */
+    private static class MetricasOperacion implements OperationMetricsMXBean {
+        private final LatencyHistogram latencias = new LatencyHistogram();
+        private final LongAdder errores = new LongAdder();
+        private final LongAdder conPresupuesto = new LongAdder();
+        private final LongAdder presupuestoAgotado = new LongAdder();
+        private final LatencyHistogram presupuestoRestante = new LatencyHistogram();
+
+        @Override
+        public long getConteo() {
+            return latencias.getConteo();
+        }
+
+        @Override
+        public long getErrores() {
+            return errores.sum();
+        }
+
+        @Override
+        public double getPromedioMs() {
+            return latencias.getPromedioMs();
+        }
+
+        @Override
+        public double getP50Ms() {
+            return latencias.getPercentilMs(50);
+        }
+
+        @Override
+        public double getP99Ms() {
+            return latencias.getPercentilMs(99);
+        }
+
+        @Override
+        public double getMaximoMs() {
+            return latencias.getMaximoMs();
+        }
+
+        @Override
+        public long getConPresupuesto() {
+            return conPresupuesto.sum();
+        }
+
+        @Override
+        public long getPresupuestoAgotado() {
+            return presupuestoAgotado.sum();
+        }
+
+        @Override
+        public double getPresupuestoRestanteP1Ms() {
+            return presupuestoRestante.getPercentilMs(1);
+        }
+
+        @Override
+        public double getPresupuestoRestantePromedioMs() {
+            return presupuestoRestante.getPromedioMs();
+        }
+    }
+}
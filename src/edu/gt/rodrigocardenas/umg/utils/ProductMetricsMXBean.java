@@ -0,0 +1,31 @@
+package edu.gt.rodrigocardenas.umg.utils;
+
+/**
+ * Métricas generales de ProductManager expuestas por JMX
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public interface ProductMetricsMXBean {
+
+    /**
+     * @return Filas leídas de la base de datos
+     */
+    long getFilasLeidas();
+
+    /**
+     * @return Filas insertadas, actualizadas o eliminadas en la base de datos
+     */
+    long getFilasEscritas();
+
+    long getErroresConexion();
+
+    long getErroresTiempoAgotado();
+
+    long getErroresRestriccion();
+
+    long getErroresOtros();
+
+    /**
+     * Descarta todas las métricas acumuladas
+     */
+    void reiniciar();
+}
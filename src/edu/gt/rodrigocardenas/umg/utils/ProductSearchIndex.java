@@ -0,0 +1,297 @@
+package edu.gt.rodrigocardenas.umg.utils;
+
+import edu.gt.rodrigocardenas.umg.models.Product;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice de trigramas en memoria sobre el nombre y los dígitos del ID de los
+ * productos. Responde las mismas búsquedas "contiene" que buscarProductos sin
+ * recorrer la tabla completa en la base de datos.
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public class ProductSearchIndex {
+
+    private static final ProductSearchIndex instancia = new ProductSearchIndex(UIConstants.CACHE_TTL_MS);
+    private static final int N = 3;
+
+    private final long ttlMs;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<Integer, Entrada> productos = new TreeMap<>();
+    private final Map<Long, ListaIds> trigramas = new HashMap<>();
+    // Momento hasta el cual el índice refleja el catálogo (0 si no está construido)
+    private volatile long vigenteHasta = 0;
+
+    /**
+     * Obtiene el índice compartido por ProductManager
+     * @return Índice de búsqueda
+     */
+    public static ProductSearchIndex getInstance() {
+        return instancia;
+    }
+
+    /**
+     * Constructor
+     * @param ttlMs Tiempo durante el cual el índice se considera al día con la base de datos
+     */
+    public ProductSearchIndex(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Verifica si un producto coincide con la búsqueda, con la misma semántica que
+     * buscarProductos: el nombre o el ID contienen el término sin distinguir mayúsculas
+     * @param producto Producto a evaluar
+     * @param terminoMinusculas Término de búsqueda en minúsculas
+     * @return true si el producto coincide
+     */
+    public static boolean coincide(Product producto, String terminoMinusculas) {
+        return coincide(producto.getProduct_id(), producto.getName(), terminoMinusculas);
+    }
+
+    /**
+     * Verifica si el ID y el nombre de un producto coinciden con la búsqueda. El
+     * término se busca como subcadena literal, igual que en la base de datos, donde
+     * sus comodines de LIKE se escapan.
+     * @param productId ID del producto
+     * @param nombre Nombre del producto
+     * @param terminoMinusculas Término de búsqueda en minúsculas
+     * @return true si el producto coincide
+     */
+    public static boolean coincide(int productId, String nombre, String terminoMinusculas) {
+        return nombre.toLowerCase(Locale.ROOT).contains(terminoMinusculas)
+                || String.valueOf(productId).contains(terminoMinusculas);
+    }
+
+    /**
+     * Reconstruye el índice a partir del catálogo completo
+     * @param catalogo Productos leídos de la base de datos
+     */
+    public void construir(List<Product> catalogo) {
+        lock.writeLock().lock();
+        try {
+            productos.clear();
+            trigramas.clear();
+            for (Product producto : catalogo) {
+                indexar(new Product(producto));
+            }
+            vigenteHasta = System.currentTimeMillis() + ttlMs;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Agrega o reemplaza un producto en el índice
+     * @param producto Producto insertado o actualizado
+     */
+    public void guardar(Product producto) {
+        if (!isConstruido()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            desindexar(producto.getProduct_id());
+            indexar(new Product(producto));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Quita un producto del índice
+     * @param productId ID del producto eliminado
+     */
+    public void eliminar(int productId) {
+        if (!isConstruido()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            desindexar(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Marca el índice como desactualizado; las búsquedas vuelven a la base de datos
+     * hasta la siguiente reconstrucción
+     */
+    public void invalidar() {
+        vigenteHasta = 0;
+    }
+
+    /**
+     * Extiende la vigencia del índice, si sigue vigente, después de aplicarle
+     * los cambios de la base de datos
+     */
+    public void renovar() {
+        if (isConstruido()) {
+            vigenteHasta = System.currentTimeMillis() + ttlMs;
+        }
+    }
+
+    /**
+     * @return true si el índice está construido y no ha expirado
+     */
+    public boolean isConstruido() {
+        return System.currentTimeMillis() < vigenteHasta;
+    }
+
+    /**
+     * Busca productos cuyo nombre o ID contengan el término
+     * @param busqueda Término de búsqueda
+     * @return Copias de los productos ordenados por ID, o null si el índice no está disponible
+     */
+    public List<Product> buscar(String busqueda) {
+        if (!isConstruido()) {
+            return null;
+        }
+        String termino = busqueda.toLowerCase(Locale.ROOT);
+
+        lock.readLock().lock();
+        try {
+            List<Product> resultados = new ArrayList<>();
+            if (termino.length() < N) {
+                // Términos cortos: recorrido en memoria, ya ordenado por ID
+                for (Entrada entrada : productos.values()) {
+                    if (entrada.coincide(termino)) {
+                        resultados.add(new Product(entrada.producto));
+                    }
+                }
+                return resultados;
+            }
+
+            // Usar la lista de candidatos más corta entre los trigramas del término
+            ListaIds candidatos = null;
+            for (int i = 0; i + N <= termino.length(); i++) {
+                ListaIds lista = trigramas.get(trigrama(termino, i));
+                if (lista == null) {
+                    return resultados;
+                }
+                if (candidatos == null || lista.tamano < candidatos.tamano) {
+                    candidatos = lista;
+                }
+            }
+
+            // Las listas están ordenadas por ID, igual que el resultado esperado
+            for (int i = 0; i < candidatos.tamano; i++) {
+                Entrada entrada = productos.get(candidatos.ids[i]);
+                if (entrada.coincide(termino)) {
+                    resultados.add(new Product(entrada.producto));
+                }
+            }
+            return resultados;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void indexar(Product producto) {
+        Entrada entrada = new Entrada(producto);
+        int id = producto.getProduct_id();
+        productos.put(id, entrada);
+        for (long clave : entrada.trigramas()) {
+            trigramas.computeIfAbsent(clave, k -> new ListaIds()).agregar(id);
+        }
+    }
+
+    private void desindexar(int productId) {
+        Entrada anterior = productos.remove(productId);
+        if (anterior == null) {
+            return;
+        }
+        for (long clave : anterior.trigramas()) {
+            ListaIds lista = trigramas.get(clave);
+            if (lista != null) {
+                lista.quitar(productId);
+                if (lista.tamano == 0) {
+                    trigramas.remove(clave);
+                }
+            }
+        }
+    }
+
+    private static void agregarTrigramas(String texto, Set<Long> claves) {
+        for (int i = 0; i + N <= texto.length(); i++) {
+            claves.add(trigrama(texto, i));
+        }
+    }
+
+    private static long trigrama(String texto, int inicio) {
+        return ((long) texto.charAt(inicio) << 32)
+                | ((long) texto.charAt(inicio + 1) << 16)
+                | texto.charAt(inicio + 2);
+    }
+
+    /**
+     * Producto indexado junto con los textos normalizados que se comparan
+     */
+    private static class Entrada {
+        private final Product producto;
+        private final String nombre;
+        private final String id;
+
+        Entrada(Product producto) {
+            this.producto = producto;
+            this.nombre = producto.getName().toLowerCase(Locale.ROOT);
+            this.id = String.valueOf(producto.getProduct_id());
+        }
+
+        boolean coincide(String terminoMinusculas) {
+            return nombre.contains(terminoMinusculas) || id.contains(terminoMinusculas);
+        }
+
+        /**
+         * Trigramas del nombre en minúsculas y de los dígitos del ID
+         */
+        Set<Long> trigramas() {
+            Set<Long> claves = new HashSet<>();
+            agregarTrigramas(nombre, claves);
+            agregarTrigramas(id, claves);
+            return claves;
+        }
+    }
+
+    /**
+     * Lista de IDs ordenada y sin duplicados. Las cargas en orden de ID
+     * (el caso de construir) solo agregan al final.
+     */
+    private static class ListaIds {
+        private int[] ids = new int[4];
+        private int tamano = 0;
+
+        void agregar(int id) {
+            int posicion = tamano > 0 && ids[tamano - 1] < id ? tamano : Arrays.binarySearch(ids, 0, tamano, id);
+            if (posicion >= 0 && posicion < tamano) {
+                return;
+            }
+            if (posicion < 0) {
+                posicion = -posicion - 1;
+            }
+            if (tamano == ids.length) {
+                ids = Arrays.copyOf(ids, tamano * 2);
+            }
+            System.arraycopy(ids, posicion, ids, posicion + 1, tamano - posicion);
+            ids[posicion] = id;
+            tamano++;
+        }
+
+        void quitar(int id) {
+            int posicion = Arrays.binarySearch(ids, 0, tamano, id);
+            if (posicion >= 0) {
+                System.arraycopy(ids, posicion + 1, ids, posicion, tamano - posicion - 1);
+                tamano--;
+            }
+        }
+    }
+}
@@ -2,32 +2,53 @@ package edu.gt.rodrigocardenas.umg.utils;
 
 import edu.gt.rodrigocardenas.umg.models.Product;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import javax.swing.table.AbstractTableModel;
 
 /**
- * Modelo de tabla personalizado para mostrar productos
+ * Modelo de tabla personalizado para mostrar productos. Las filas se guardan por
+ * columnas en un ProductColumnStore en lugar de un objeto Product por fila.
+ * Cada escritura notifica solo la fila que cambió. La fila se ubica por búsqueda
+ * binaria (O(log n)), pero insertar o quitar una fila desplaza las siguientes
+ * (O(n), alrededor de 1 ms con un millón de filas); actualizar una fila no desplaza
+ * nada. Los lotes grandes de cambios se aplican en una sola pasada.
  * @author Rodrigo Gerardo Cárdenas Monroy
  */
 public class ProductTableModel extends AbstractTableModel {
     
-    private List<Product> productos;
-    private final String[] columnNames = {"ID", "Nombre", "Precio", "Estado", "Acciones"};
-    private final Class<?>[] columnClasses = {Integer.class, String.class, Float.class, String.class, String.class};
+    // Con más cambios que esto se reconstruye la tabla en una pasada
+    private static final int MAXIMO_CAMBIOS_POR_FILA = 100;
+    
+    // Columnas compartidas con PagedProductTableModel
+    static final String[] NOMBRES_COLUMNAS = {"ID", "Nombre", "Precio", "Estado", "Acciones"};
+    static final Class<?>[] CLASES_COLUMNAS = {Integer.class, String.class, Float.class, String.class, String.class};
+    static final int COLUMNA_ACCIONES = 4;
+    
+    private ProductColumnStore productos;
     
     /**
      * Constructor
      */
     public ProductTableModel() {
-        this.productos = new ArrayList<>();
+        this.productos = new ProductColumnStore(16);
     }
     
     /**
      * Establece la lista de productos
-     * @param productos Lista de productos a mostrar
+     * @param productos Lista de productos a mostrar, ordenada por ID
      */
     public void setProductos(List<Product> productos) {
-        this.productos = productos != null ? productos : new ArrayList<>();
+        setProductos(productos != null ? ProductColumnStore.desde(productos) : null);
+    }
+    
+    /**
+     * Establece las filas a partir de un almacén por columnas, que puede
+     * construirse fuera del Event Dispatch Thread
+     * @param productos Almacén a mostrar; el modelo pasa a ser su dueño
+     */
+    public void setProductos(ProductColumnStore productos) {
+        this.productos = productos != null ? productos : new ProductColumnStore(16);
         fireTableDataChanged();
     }
     
@@ -42,32 +63,54 @@ public class ProductTableModel extends AbstractTableModel {
     
     @Override
     public int getRowCount() {
-        return productos.size();
+        return productos.getTamano();
     }
     
     @Override
     public int getColumnCount() {
-        return columnNames.length;
+        return NOMBRES_COLUMNAS.length;
     }
     
     @Override
     public String getColumnName(int column) {
-        return columnNames[column];
+        return NOMBRES_COLUMNAS[column];
     }
     
     @Override
     public Class<?> getColumnClass(int columnIndex) {
-        return columnClasses[columnIndex];
+        return CLASES_COLUMNAS[columnIndex];
     }
     
     @Override
     public Object getValueAt(int rowIndex, int columnIndex) {
-        if (rowIndex >= productos.size()) {
+        if (rowIndex < 0 || rowIndex >= productos.getTamano()) {
             return null;
         }
         
-        Product producto = productos.get(rowIndex);
-        
+        // Lectura directa de las columnas, sin crear el Product de la fila
+        switch (columnIndex) {
+            case 0: // ID
+                return productos.getId(rowIndex);
+            case 1: // Nombre
+                return productos.getNombre(rowIndex);
+            case 2: // Precio
+                return productos.getPrecio(rowIndex);
+            case 3: // Estado
+                return productos.isActivo(rowIndex) ? "Activo" : "Inactivo";
+            case 4: // Acciones
+                return "Eliminar";
+            default:
+                return null;
+        }
+    }
+    
+    /**
+     * Obtiene el valor de una columna a partir de un producto
+     * @param producto Producto de la fila
+     * @param columnIndex Índice de la columna
+     * @return Valor a mostrar
+     */
+    protected static Object valorColumna(Product producto, int columnIndex) {
         switch (columnIndex) {
             case 0: // ID
                 return producto.getProduct_id();
@@ -87,17 +130,17 @@ public class ProductTableModel extends AbstractTableModel {
     @Override
     public boolean isCellEditable(int rowIndex, int columnIndex) {
         // Solo la columna de acciones es editable
-        return columnIndex == 4;
+        return columnIndex == COLUMNA_ACCIONES;
     }
     
     /**
      * Obtiene el producto en la fila especificada
      * @param rowIndex Índice de la fila
-     * @return Producto en esa fila o null si no existe
+     * @return Producto nuevo con los datos de esa fila o null si no existe
      */
     public Product getProducto(int rowIndex) {
-        if (rowIndex >= 0 && rowIndex < productos.size()) {
-            return productos.get(rowIndex);
+        if (rowIndex >= 0 && rowIndex < productos.getTamano()) {
+            return productos.getProducto(rowIndex);
         }
         return null;
     }
@@ -107,6 +150,97 @@ public class ProductTableModel extends AbstractTableModel {
      * @return Lista de productos
      */
     public List<Product> getProductos() {
-        return new ArrayList<>(productos);
+        return productos.aLista();
+    }
+    
+    /**
+     * Obtiene una copia de las filas del modelo que puede leerse desde otro hilo
+     * @return Copia del almacén por columnas
+     */
+    public ProductColumnStore copiarAlmacen() {
+        return productos.copia();
+    }
+    
+    /**
+     * Inserta un producto en la fila que le corresponde por ID, desplazando las
+     * siguientes (O(n)); si ya está en la tabla, reemplaza su fila
+     * @param producto Producto insertado en la base de datos
+     */
+    public void insertarProducto(Product producto) {
+        int fila = productos.buscarFila(producto.getProduct_id());
+        if (fila >= 0) {
+            productos.reemplazar(fila, producto);
+            fireTableRowsUpdated(fila, fila);
+            return;
+        }
+        fila = -fila - 1;
+        productos.insertar(fila, producto);
+        fireTableRowsInserted(fila, fila);
+    }
+    
+    /**
+     * Reemplaza la fila de un producto
+     * @param producto Producto actualizado en la base de datos
+     * @return true si el producto estaba en la tabla
+     */
+    public boolean actualizarProducto(Product producto) {
+        int fila = productos.buscarFila(producto.getProduct_id());
+        if (fila < 0) {
+            return false;
+        }
+        productos.reemplazar(fila, producto);
+        fireTableRowsUpdated(fila, fila);
+        return true;
+    }
+    
+    /**
+     * Quita la fila de un producto, desplazando las siguientes (O(n))
+     * @param productId ID del producto eliminado
+     * @return true si el producto estaba en la tabla
+     */
+    public boolean eliminarProducto(int productId) {
+        int fila = productos.buscarFila(productId);
+        if (fila < 0) {
+            return false;
+        }
+        productos.eliminar(fila);
+        fireTableRowsDeleted(fila, fila);
+        return true;
+    }
+    
+    /**
+     * Aplica los cambios obtenidos con ProductManager.obtenerCambiosDesde. Los
+     * productos guardados que ya no coinciden con la búsqueda se quitan de la tabla.
+     * @param cambios Cambios a aplicar
+     * @param terminoMinusculas Término de la búsqueda mostrada, o vacío si se muestra todo
+     */
+    public void aplicarCambios(CambiosProductos cambios, String terminoMinusculas) {
+        List<Product> guardados = new ArrayList<>(cambios.getGuardados().size());
+        int[] eliminados = Arrays.copyOf(cambios.getEliminados(),
+                cambios.getEliminados().length + cambios.getGuardados().size());
+        int totalEliminados = cambios.getEliminados().length;
+        for (Product producto : cambios.getGuardados()) {
+            if (terminoMinusculas.isEmpty() || ProductSearchIndex.coincide(producto.getProduct_id(),
+                    producto.getName(), terminoMinusculas)) {
+                guardados.add(producto);
+            } else {
+                eliminados[totalEliminados++] = producto.getProduct_id();
+            }
+        }
+        eliminados = Arrays.copyOf(eliminados, totalEliminados);
+        
+        if (guardados.size() + eliminados.length <= MAXIMO_CAMBIOS_POR_FILA) {
+            // Pocos cambios: se notifican fila por fila para conservar la selección
+            for (int productId : eliminados) {
+                eliminarProducto(productId);
+            }
+            for (Product producto : guardados) {
+                insertarProducto(producto);
+            }
+            return;
+        }
+        Arrays.sort(eliminados);
+        productos.aplicar(guardados, eliminados);
+        fireTableDataChanged();
     }
 }
@@ -0,0 +1,341 @@
+package edu.gt.rodrigocardenas.umg.utils;
+
+import edu.gt.rodrigocardenas.umg.utils.ProductMetrics.Operacion;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Unidad de trabajo que agrupa varias operaciones de {@link ProductManager} en
+ * una sola transacción. Mientras está abierta, las operaciones del mismo hilo
+ * usan la misma conexión del pool sin autocommit, y los commits intermedios de
+ * las operaciones masivas se omiten: todo se confirma una sola vez en
+ * {@link #confirmar()}. Cerrarla sin confirmar revierte los cambios.
+ * Dentro de la transacción las lecturas van a la base de datos (ven los cambios
+ * propios aún sin confirmar) y la caché solo se actualiza después del commit.
+ * <pre>
+ * try (ProductTransaction tx = ProductTransaction.iniciar()) {
+ *     ProductManager.insertarProducto(nuevo);
+ *     ProductManager.actualizarProducto(existente);
+ *     tx.confirmar();
+ * }
+ * </pre>
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public class ProductTransaction implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(ProductTransaction.class.getName());
+    private static final ProductMetrics metricas = ProductMetrics.getInstance();
+    private static final ThreadLocal<ProductTransaction> actual = new ThreadLocal<>();
+
+    /**
+     * Trabajo que se ejecuta dentro de una transacción
+     * @param <T> Tipo del resultado
+     */
+    @FunctionalInterface
+    public interface Trabajo<T> {
+        T ejecutar(ProductTransaction tx) throws SQLException;
+    }
+
+    private final Connection fisica;
+    private final Connection compartida;
+    private final int aislamientoAnterior;
+    private final Thread hilo;
+    private final long inicio;
+    private final List<Runnable> accionesAlConfirmar = new ArrayList<>();
+    // Acciones diferidas registradas cuando se creó cada savepoint
+    private final Map<Savepoint, Integer> accionesPorSavepoint = new IdentityHashMap<>();
+    private final Map<Savepoint, Boolean> reversionPorSavepoint = new IdentityHashMap<>();
+    private boolean terminada = false;
+    // Una operación falló y pidió revertir: ya no se puede confirmar
+    private boolean soloReversion = false;
+
+    private ProductTransaction(Connection fisica, int aislamientoAnterior, long inicio) {
+        this.fisica = fisica;
+        this.aislamientoAnterior = aislamientoAnterior;
+        this.hilo = Thread.currentThread();
+        this.inicio = inicio;
+        this.compartida = (Connection) Proxy.newProxyInstance(
+                ProductTransaction.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new ConexionCompartida());
+    }
+
+    /**
+     * Inicia una transacción con el nivel de aislamiento por defecto
+     * @return Transacción asociada al hilo actual
+     */
+    public static ProductTransaction iniciar() {
+        return iniciar(UIConstants.DB_TRANSACTION_ISOLATION);
+    }
+
+    /**
+     * Inicia una transacción en el hilo actual
+     * @param aislamiento Nivel de aislamiento (Connection.TRANSACTION_READ_COMMITTED
+     *                    o Connection.TRANSACTION_SERIALIZABLE en Oracle)
+     * @return Transacción asociada al hilo actual
+     * @throws IllegalStateException si el hilo ya tiene una transacción abierta
+     */
+    public static ProductTransaction iniciar(int aislamiento) {
+        if (actual.get() != null) {
+            throw new IllegalStateException("El hilo ya tiene una transacción abierta; use savepoints para anidar");
+        }
+        long inicio = System.nanoTime();
+        Connection conn = null;
+        try {
+            conn = ConnectionPool.getInstance().getConnection();
+            int anterior = conn.getTransactionIsolation();
+            if (anterior != aislamiento) {
+                conn.setTransactionIsolation(aislamiento);
+            }
+            conn.setAutoCommit(false);
+            ProductTransaction tx = new ProductTransaction(conn, anterior, inicio);
+            actual.set(tx);
+            return tx;
+        } catch (SQLException ex) {
+            logger.log(Level.SEVERE, "Error al iniciar transacción", ex);
+            metricas.registrarError(Operacion.TRANSACCION, ex);
+            if (conn != null) {
+                try {
+                    conn.close();
+                } catch (SQLException cierre) {
+                    ex.addSuppressed(cierre);
+                }
+            }
+            throw ProductManager.errorDeBaseDeDatos(Operacion.TRANSACCION, ex);
+        }
+    }
+
+    /**
+     * Ejecuta un trabajo en una transacción: confirma si termina bien y revierte
+     * si lanza una excepción
+     * @param aislamiento Nivel de aislamiento
+     * @param trabajo Operaciones a ejecutar
+     * @param <T> Tipo del resultado
+     * @return Resultado del trabajo
+     */
+    public static <T> T ejecutar(int aislamiento, Trabajo<T> trabajo) {
+        try (ProductTransaction tx = iniciar(aislamiento)) {
+            T resultado = trabajo.ejecutar(tx);
+            tx.confirmar();
+            return resultado;
+        } catch (SQLException ex) {
+            logger.log(Level.SEVERE, "Error en transacción de productos", ex);
+            metricas.registrarError(Operacion.TRANSACCION, ex);
+            throw ProductManager.errorDeBaseDeDatos(Operacion.TRANSACCION, ex);
+        }
+    }
+
+    /**
+     * Ejecuta un trabajo en una transacción con el nivel de aislamiento por defecto
+     * @param trabajo Operaciones a ejecutar
+     * @param <T> Tipo del resultado
+     * @return Resultado del trabajo
+     */
+    public static <T> T ejecutar(Trabajo<T> trabajo) {
+        return ejecutar(UIConstants.DB_TRANSACTION_ISOLATION, trabajo);
+    }
+
+    /**
+     * @return Transacción abierta en el hilo actual, o null si no hay
+     */
+    static ProductTransaction actual() {
+        return actual.get();
+    }
+
+    /**
+     * @return Conexión de la transacción; cerrarla no la devuelve al pool
+     */
+    Connection getConexion() {
+        return compartida;
+    }
+
+    /**
+     * Ejecuta una acción sobre la caché después del commit; si la transacción se
+     * revierte, la acción se descarta
+     */
+    void alConfirmar(Runnable accion) {
+        accionesAlConfirmar.add(accion);
+    }
+
+    /**
+     * Crea un savepoint al que se puede volver sin revertir toda la transacción
+     * @param nombre Nombre del savepoint
+     * @return Savepoint creado
+     */
+    public Savepoint crearSavepoint(String nombre) {
+        verificarAbierta();
+        try {
+            Savepoint savepoint = fisica.setSavepoint(nombre);
+            accionesPorSavepoint.put(savepoint, accionesAlConfirmar.size());
+            reversionPorSavepoint.put(savepoint, soloReversion);
+            return savepoint;
+        } catch (SQLException ex) {
+            logger.log(Level.SEVERE, "Error al crear savepoint", ex);
+            throw ProductManager.errorDeBaseDeDatos(Operacion.TRANSACCION, ex);
+        }
+    }
+
+    /**
+     * Revierte los cambios hechos después del savepoint, incluidas sus acciones
+     * pendientes sobre la caché. Si una operación falló después del savepoint,
+     * la transacción vuelve a poder confirmarse.
+     * @param savepoint Savepoint creado en esta transacción
+     */
+    public void revertirHasta(Savepoint savepoint) {
+        verificarAbierta();
+        Integer acciones = accionesPorSavepoint.get(savepoint);
+        if (acciones == null) {
+            throw new IllegalArgumentException("El savepoint no pertenece a esta transacción");
+        }
+        try {
+            fisica.rollback(savepoint);
+            accionesAlConfirmar.subList(acciones, accionesAlConfirmar.size()).clear();
+            soloReversion = reversionPorSavepoint.get(savepoint);
+        } catch (SQLException ex) {
+            logger.log(Level.SEVERE, "Error al revertir hasta savepoint", ex);
+            throw ProductManager.errorDeBaseDeDatos(Operacion.TRANSACCION, ex);
+        }
+    }
+
+    /**
+     * Confirma todos los cambios y actualiza la caché
+     * @throws IllegalStateException si una operación falló y la transacción se
+     *         marcó para revertirse; en ese caso se revierte
+     */
+    public void confirmar() {
+        verificarAbierta();
+        if (soloReversion) {
+            revertir();
+            throw new IllegalStateException("Una operación de la transacción falló; los cambios se revirtieron");
+        }
+        try {
+            fisica.commit();
+        } catch (SQLException ex) {
+            logger.log(Level.SEVERE, "Error al confirmar transacción", ex);
+            metricas.registrarError(Operacion.TRANSACCION, ex);
+            terminar();
+            throw ProductManager.errorDeBaseDeDatos(Operacion.TRANSACCION, ex);
+        }
+        terminar();
+        for (Runnable accion : accionesAlConfirmar) {
+            accion.run();
+        }
+        accionesAlConfirmar.clear();
+    }
+
+    /**
+     * Revierte todos los cambios de la transacción
+     */
+    public void revertir() {
+        verificarAbierta();
+        try {
+            fisica.rollback();
+        } catch (SQLException ex) {
+            logger.log(Level.WARNING, "Error al revertir transacción", ex);
+        } finally {
+            accionesAlConfirmar.clear();
+            terminar();
+        }
+    }
+
+    /**
+     * @return true si ya se confirmó o revirtió
+     */
+    public boolean isTerminada() {
+        return terminada;
+    }
+
+    /**
+     * Revierte la transacción si no se confirmó
+     */
+    @Override
+    public void close() {
+        if (!terminada) {
+            revertir();
+        }
+    }
+
+    private void verificarAbierta() {
+        if (terminada) {
+            throw new IllegalStateException("La transacción ya terminó");
+        }
+        if (Thread.currentThread() != hilo) {
+            throw new IllegalStateException("La transacción pertenece a otro hilo");
+        }
+    }
+
+    /**
+     * Restaura la conexión y la devuelve al pool
+     */
+    private void terminar() {
+        terminada = true;
+        actual.remove();
+        try {
+            if (fisica.getTransactionIsolation() != aislamientoAnterior) {
+                fisica.setTransactionIsolation(aislamientoAnterior);
+            }
+        } catch (SQLException ex) {
+            logger.log(Level.WARNING, "Error al restaurar el nivel de aislamiento", ex);
+        }
+        try {
+            fisica.close();
+        } catch (SQLException ex) {
+            logger.log(Level.WARNING, "Error al devolver la conexión de la transacción", ex);
+        }
+        metricas.registrar(Operacion.TRANSACCION, inicio);
+    }
+
+    /**
+     * Conexión entregada a las operaciones dentro de la transacción: close(),
+     * commit() y setAutoCommit() no tienen efecto porque la transacción decide
+     * cuándo terminar, y rollback() solo la marca para revertirse
+     */
+    private class ConexionCompartida implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                case "commit":
+                case "setAutoCommit":
+                    return null;
+                case "rollback":
+                    if (args == null) {
+                        soloReversion = true;
+                        return null;
+                    }
+                    break;
+                case "getAutoCommit":
+                    return false;
+                case "isClosed":
+                    return terminada || fisica.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConexionCompartida[" + fisica + "]";
+                default:
+                    break;
+            }
+            if (terminada) {
+                throw new SQLException("La transacción ya terminó");
+            }
+            try {
+                return method.invoke(fisica, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+}
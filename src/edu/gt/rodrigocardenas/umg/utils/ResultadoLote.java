@@ -0,0 +1,106 @@
+package edu.gt.rodrigocardenas.umg.utils;
+
+/**
+ * Resultado fila por fila de una operación masiva sobre productos
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public class ResultadoLote {
+
+    /**
+     * Estado final de cada fila de un lote
+     */
+    public enum EstadoFila {
+        INSERTADO,
+        ACTUALIZADO,
+        ELIMINADO,
+        DUPLICADO,
+        NO_ENCONTRADO,
+        ERROR
+    }
+
+    private final EstadoFila[] estados;
+    private final String[] mensajes;
+
+    /**
+     * Constructor
+     * @param total Número de filas del lote
+     */
+    public ResultadoLote(int total) {
+        this.estados = new EstadoFila[total];
+        this.mensajes = new String[total];
+    }
+
+    /**
+     * Registra el estado de una fila
+     * @param indice Posición de la fila en el lote
+     * @param estado Estado final de la fila
+     * @param mensaje Detalle del error o null
+     */
+    void registrar(int indice, EstadoFila estado, String mensaje) {
+        estados[indice] = estado;
+        mensajes[indice] = mensaje;
+    }
+
+    /**
+     * @return Número de filas del lote
+     */
+    public int getTotal() {
+        return estados.length;
+    }
+
+    /**
+     * Obtiene el estado de una fila
+     * @param indice Posición de la fila en el lote
+     * @return Estado de la fila
+     */
+    public EstadoFila getEstado(int indice) {
+        return estados[indice];
+    }
+
+    /**
+     * Obtiene el detalle del error de una fila
+     * @param indice Posición de la fila en el lote
+     * @return Mensaje de error o null si la fila no falló
+     */
+    public String getMensaje(int indice) {
+        return mensajes[indice];
+    }
+
+    /**
+     * Cuenta las filas que terminaron en el estado indicado
+     * @param estado Estado a contar
+     * @return Número de filas con ese estado
+     */
+    public int contar(EstadoFila estado) {
+        int cantidad = 0;
+        for (EstadoFila e : estados) {
+            if (e == estado) {
+                cantidad++;
+            }
+        }
+        return cantidad;
+    }
+
+    /**
+     * Verifica si todas las filas se aplicaron correctamente
+     * @return true si ninguna fila terminó en DUPLICADO, NO_ENCONTRADO o ERROR
+     */
+    public boolean isCompleto() {
+        return contar(EstadoFila.DUPLICADO) == 0
+                && contar(EstadoFila.NO_ENCONTRADO) == 0
+                && contar(EstadoFila.ERROR) == 0;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultadoLote{" +
+                "total=" + estados.length +
+                ", insertados=" + contar(EstadoFila.INSERTADO) +
+                ", actualizados=" + contar(EstadoFila.ACTUALIZADO) +
+                ", eliminados=" + contar(EstadoFila.ELIMINADO) +
+                ", duplicados=" + contar(EstadoFila.DUPLICADO) +
+                ", noEncontrados=" + contar(EstadoFila.NO_ENCONTRADO) +
+                ", errores=" + contar(EstadoFila.ERROR) +
+                '}';
+    }
+}
@@ -0,0 +1,167 @@
+package edu.gt.rodrigocardenas.umg.utils;
+
+import edu.gt.rodrigocardenas.umg.models.Product;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Tareas de base de datos del arranque que se ejecutan mientras se construye la
+ * interfaz: leer la copia local del catálogo ({@link CatalogSnapshot}),
+ * precalentar el pool y verificar la tabla, y leer la primera página de
+ * productos, cada una en su propio hilo. También registra el tiempo de cada fase
+ * del arranque, medido desde el inicio de la JVM, para seguir el tiempo hasta la
+ * primera fila visible.
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public class StartupTasks {
+
+    private static final Logger logger = Logger.getLogger(StartupTasks.class.getName());
+
+    // No lee filas: solo comprueba que la tabla exista y que haya permisos
+    private static final String SQL_VERIFICAR = "SELECT PRODUCT_ID FROM UMG.PRODUCTS WHERE 1 = 0";
+
+    private final long inicioJvmNanos;
+    private final Map<String, Long> fases = new LinkedHashMap<>();
+    private final CompletableFuture<CatalogSnapshot> instantanea;
+    private final CompletableFuture<Boolean> conexionVerificada;
+    private final CompletableFuture<List<Product>> primeraPagina;
+    private boolean terminado = false;
+
+    private StartupTasks() {
+        long tiempoActivoMs = ManagementFactory.getRuntimeMXBean().getUptime();
+        this.inicioJvmNanos = System.nanoTime() - tiempoActivoMs * 1_000_000L;
+        marcar("inicio de main");
+
+        AtomicInteger contador = new AtomicInteger();
+        ExecutorService hilos = Executors.newFixedThreadPool(3, r -> {
+            Thread hilo = new Thread(r, "arranque-db-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        this.instantanea = UIConstants.SNAPSHOT_ENABLED
+                ? CompletableFuture.supplyAsync(this::leerInstantanea, hilos)
+                : CompletableFuture.completedFuture(null);
+        this.conexionVerificada = CompletableFuture.supplyAsync(this::prepararConexion, hilos);
+        this.primeraPagina = CompletableFuture.supplyAsync(this::leerPrimeraPagina, hilos);
+        // Los hilos terminan cuando acaban las tareas
+        hilos.shutdown();
+    }
+
+    /**
+     * Inicia las tareas de base de datos del arranque en segundo plano
+     * @return Tareas en curso
+     */
+    public static StartupTasks iniciar() {
+        return new StartupTasks();
+    }
+
+    /**
+     * @return Se completa con la copia local del catálogo, o con null si no hay
+     *         una válida; nunca falla
+     */
+    public CompletableFuture<CatalogSnapshot> getInstantanea() {
+        return instantanea;
+    }
+
+    /**
+     * @return Se completa con true si la base de datos y la tabla UMG.PRODUCTS
+     *         están disponibles; nunca falla
+     */
+    public CompletableFuture<Boolean> getConexionVerificada() {
+        return conexionVerificada;
+    }
+
+    /**
+     * @return Se completa con los primeros TABLE_PAGE_SIZE productos por
+     *         PRODUCT_ID, o falla si no se pudieron leer
+     */
+    public CompletableFuture<List<Product>> getPrimeraPagina() {
+        return primeraPagina;
+    }
+
+    /**
+     * Registra el fin de una fase del arranque; solo cuenta la primera vez
+     * @param fase Nombre de la fase
+     */
+    public void marcar(String fase) {
+        long ms = (System.nanoTime() - inicioJvmNanos) / 1_000_000L;
+        synchronized (fases) {
+            if (terminado || fases.putIfAbsent(fase, ms) != null) {
+                return;
+            }
+        }
+        logger.info(String.format("Arranque: %s a los %,d ms", fase, ms));
+    }
+
+    /**
+     * Registra la última fase y escribe en el log el resumen de todas
+     * @param fase Nombre de la última fase
+     */
+    public void terminar(String fase) {
+        marcar(fase);
+        StringBuilder resumen = new StringBuilder("Fases del arranque (ms desde el inicio de la JVM):");
+        synchronized (fases) {
+            if (terminado) {
+                return;
+            }
+            terminado = true;
+            long anterior = 0;
+            for (Map.Entry<String, Long> entrada : fases.entrySet()) {
+                resumen.append(String.format("%n  %-28s %,8d  (+%,d)", entrada.getKey(), entrada.getValue(),
+                        entrada.getValue() - anterior));
+                anterior = entrada.getValue();
+            }
+        }
+        logger.info(resumen.toString());
+    }
+
+    /**
+     * Abre las conexiones mínimas del pool y verifica la tabla con una de ellas
+     */
+    private boolean prepararConexion() {
+        ConnectionPool.getInstance().precalentar();
+        marcar("pool precalentado");
+        Deadline.Alcance alcance = Deadline.establecer(UIConstants.UI_DB_TIMEOUT_MS);
+        try (Connection conn = ConnectionPool.getInstance().getConnection();
+             PreparedStatement ps = conn.prepareStatement(SQL_VERIFICAR)) {
+            ps.executeQuery().close();
+            marcar("conexión verificada");
+            return true;
+        } catch (SQLException | RuntimeException ex) {
+            logger.log(Level.SEVERE, "Error al verificar conexión a la base de datos", ex);
+            return false;
+        } finally {
+            alcance.close();
+        }
+    }
+
+    private CatalogSnapshot leerInstantanea() {
+        CatalogSnapshot copia = CatalogSnapshot.leer(CatalogSnapshot.getArchivo());
+        if (copia != null) {
+            marcar("copia local leída");
+        }
+        return copia;
+    }
+
+    private List<Product> leerPrimeraPagina() {
+        Deadline.Alcance alcance = Deadline.establecer(UIConstants.UI_DB_TIMEOUT_MS);
+        try {
+            List<Product> pagina = ProductManager.obtenerPagina(0, UIConstants.TABLE_PAGE_SIZE);
+            marcar("primera página leída");
+            return pagina;
+        } finally {
+            alcance.close();
+        }
+    }
+}
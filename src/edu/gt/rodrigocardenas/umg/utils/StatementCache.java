@@ -0,0 +1,215 @@
+package edu.gt.rodrigocardenas.umg.utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Caché LRU de sentencias preparadas asociada a una conexión física del pool.
+ * Las sentencias entregadas son envoltorios: al cerrarlas se limpian sus parámetros
+ * y quedan disponibles para la siguiente ejecución del mismo SQL.
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+class StatementCache {
+
+    private static final Logger logger = Logger.getLogger(StatementCache.class.getName());
+
+    private final Connection conexion;
+    private final int capacidad;
+    private final AtomicLong aciertos;
+    private final AtomicLong fallos;
+    private final AtomicLong desalojos;
+    private final LinkedHashMap<String, SentenciaCacheada> sentencias;
+
+    /**
+     * Constructor
+     * @param conexion Conexión física dueña de las sentencias
+     * @param capacidad Número máximo de sentencias abiertas en caché
+     * @param aciertos Contador compartido de aciertos
+     * @param fallos Contador compartido de fallos
+     * @param desalojos Contador compartido de desalojos
+     */
+    StatementCache(Connection conexion, int capacidad, AtomicLong aciertos, AtomicLong fallos, AtomicLong desalojos) {
+        this.conexion = conexion;
+        this.capacidad = capacidad;
+        this.aciertos = aciertos;
+        this.fallos = fallos;
+        this.desalojos = desalojos;
+        this.sentencias = new LinkedHashMap<String, SentenciaCacheada>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SentenciaCacheada> eldest) {
+                if (size() > StatementCache.this.capacidad) {
+                    StatementCache.this.desalojos.incrementAndGet();
+                    eldest.getValue().desalojar();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Obtiene una sentencia preparada para el SQL indicado, reutilizándola si ya existe
+     * @param sql Sentencia SQL
+     * @return Sentencia preparada lista para recibir parámetros
+     * @throws SQLException si no se pudo preparar la sentencia
+     */
+    PreparedStatement preparar(String sql) throws SQLException {
+        if (capacidad <= 0) {
+            fallos.incrementAndGet();
+            return conexion.prepareStatement(sql);
+        }
+
+        SentenciaCacheada cacheada = sentencias.get(sql);
+        if (cacheada != null && !cacheada.enUso) {
+            aciertos.incrementAndGet();
+            return cacheada.prestar();
+        }
+
+        fallos.incrementAndGet();
+        PreparedStatement fisica = conexion.prepareStatement(sql);
+        if (cacheada != null) {
+            // El mismo SQL ya está en uso en esta conexión: se entrega una sentencia sin caché
+            return fisica;
+        }
+        try {
+            cacheada = new SentenciaCacheada(fisica);
+        } catch (SQLException ex) {
+            fisica.close();
+            throw ex;
+        }
+        sentencias.put(sql, cacheada);
+        return cacheada.prestar();
+    }
+
+    /**
+     * Cierra todas las sentencias de la caché
+     */
+    void cerrar() {
+        for (SentenciaCacheada cacheada : sentencias.values()) {
+            cacheada.desalojar();
+        }
+        sentencias.clear();
+    }
+
+    /**
+     * Sentencia física guardada en caché
+     */
+    private static class SentenciaCacheada {
+        private final PreparedStatement fisica;
+        // Valores del driver al preparar la sentencia, restaurados al devolverla
+        private final int fetchSizeInicial;
+        private final int maxRowsInicial;
+        private final int queryTimeoutInicial;
+        private boolean enUso = false;
+        private boolean desalojada = false;
+
+        SentenciaCacheada(PreparedStatement fisica) throws SQLException {
+            this.fisica = fisica;
+            this.fetchSizeInicial = fisica.getFetchSize();
+            this.maxRowsInicial = fisica.getMaxRows();
+            this.queryTimeoutInicial = fisica.getQueryTimeout();
+        }
+
+        PreparedStatement prestar() {
+            enUso = true;
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    StatementCache.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new SentenciaPrestada(this));
+        }
+
+        void devolver(ResultSet ultimoResultado) {
+            try {
+                if (ultimoResultado != null) {
+                    ultimoResultado.close();
+                }
+                // Quien la tome después no debe heredar parámetros, lotes ni límites
+                fisica.clearParameters();
+                fisica.clearBatch();
+                fisica.setFetchSize(fetchSizeInicial);
+                fisica.setMaxRows(maxRowsInicial);
+                fisica.setQueryTimeout(queryTimeoutInicial);
+            } catch (SQLException ex) {
+                logger.log(Level.WARNING, "Error al limpiar sentencia en caché", ex);
+                desalojada = true;
+            }
+            enUso = false;
+            if (desalojada) {
+                cerrarFisica();
+            }
+        }
+
+        void desalojar() {
+            desalojada = true;
+            if (!enUso) {
+                cerrarFisica();
+            }
+        }
+
+        private void cerrarFisica() {
+            try {
+                fisica.close();
+            } catch (SQLException ex) {
+                logger.log(Level.WARNING, "Error al cerrar sentencia en caché", ex);
+            }
+        }
+    }
+
+    /**
+     * Manejador de la sentencia prestada: intercepta close() para devolverla a la caché
+     */
+    private static class SentenciaPrestada implements InvocationHandler {
+        private final SentenciaCacheada cacheada;
+        private ResultSet ultimoResultado;
+        private boolean cerrada = false;
+
+        SentenciaPrestada(SentenciaCacheada cacheada) {
+            this.cacheada = cacheada;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!cerrada) {
+                        cerrada = true;
+                        cacheada.devolver(ultimoResultado);
+                    }
+                    return null;
+                case "isClosed":
+                    return cerrada || cacheada.fisica.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "SentenciaCacheada[" + cacheada.fisica + "]";
+                default:
+                    break;
+            }
+            if (cerrada) {
+                throw new SQLException("La sentencia ya fue devuelta a la caché");
+            }
+            try {
+                Object resultado = method.invoke(cacheada.fisica, args);
+                if (resultado instanceof ResultSet) {
+                    ultimoResultado = (ResultSet) resultado;
+                }
+                return resultado;
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package edu.gt.rodrigocardenas.umg.utils;
+
+/**
+ * Error lanzado cuando una operación de base de datos supera su tiempo límite
+ * ({@link Deadline}) o la base de datos cancela la sentencia por tiempo
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public class TiempoAgotadoException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String etapa;
+    private final long presupuestoMs;
+
+    /**
+     * Constructor
+     * @param etapa Etapa en la que se agotó el tiempo (conexión, ejecución, lectura...)
+     * @param presupuestoMs Tiempo límite total de la operación, o 0 si no se conoce
+     * @param causa Error original, o null
+     */
+    public TiempoAgotadoException(String etapa, long presupuestoMs, Throwable causa) {
+        super(UIConstants.TIMEOUT_ERROR + " (" + etapa
+                + (presupuestoMs > 0 ? ", límite de " + presupuestoMs + " ms" : "") + ")", causa);
+        this.etapa = etapa;
+        this.presupuestoMs = presupuestoMs;
+    }
+
+    /**
+     * @return Etapa en la que se agotó el tiempo
+     */
+    public String getEtapa() {
+        return etapa;
+    }
+
+    /**
+     * @return Tiempo límite total de la operación en milisegundos, o 0 si no se conoce
+     */
+    public long getPresupuestoMs() {
+        return presupuestoMs;
+    }
+}
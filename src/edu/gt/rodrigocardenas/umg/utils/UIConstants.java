@@ -51,6 +51,7 @@ public class UIConstants {
     public static final String DELETE_CONFIRMATION = "¿Está seguro de que desea eliminar este producto?";
     public static final String DUPLICATE_ID = "Ya existe un producto con este ID";
     public static final String CONNECTION_ERROR = "Error de conexión a la base de datos";
+    public static final String TIMEOUT_ERROR = "La base de datos no respondió a tiempo";
     
     // Textos de botones
     public static final String ADD_BUTTON_TEXT = "Agregar";
@@ -59,6 +60,8 @@ public class UIConstants {
     public static final String DELETE_BUTTON_TEXT = "Eliminar";
     public static final String REFRESH_BUTTON_TEXT = "Refrescar";
     public static final String UPDATE_BUTTON_TEXT = "Actualizar";
+    public static final String IMPORT_BUTTON_TEXT = "Importar CSV";
+    public static final String EXPORT_BUTTON_TEXT = "Exportar";
     
     // Textos de etiquetas
     public static final String ID_LABEL = "ID del Producto:";
@@ -82,4 +85,69 @@ public class UIConstants {
     public static final String DB_URL = "jdbc:oracle:thin:@//localhost:1521/XEPDB1";
     public static final String DB_USER = "umg";
     public static final String DB_PASSWORD = "umg123";
+    
+    // Configuración del pool de conexiones
+    public static final int DB_POOL_MIN_SIZE = 2;
+    public static final int DB_POOL_MAX_SIZE = 10;
+    public static final long DB_POOL_IDLE_TIMEOUT_MS = 300_000;      // 5 minutos
+    public static final long DB_POOL_ACQUIRE_TIMEOUT_MS = 10_000;    // 10 segundos
+    public static final long DB_POOL_VALIDATION_BYPASS_MS = 500;     // Sin validar si se usó hace menos
+    public static final int DB_POOL_VALIDATION_TIMEOUT_S = 2;
+    public static final int DB_STATEMENT_CACHE_SIZE = 20;             // Sentencias preparadas por conexión
+    public static final int DB_FETCH_SIZE = 500;                      // Filas por viaje al leer productos
+    
+    // Tiempos límite de base de datos
+    public static final int DB_LOGIN_TIMEOUT_S = 10;                  // Conexión y autenticación de una conexión nueva
+    public static final int DB_QUERY_TIMEOUT_S = 60;                  // Por sentencia cuando no hay un límite de operación
+    public static final int DB_NETWORK_TIMEOUT_MS = 120_000;          // Espera máxima de una respuesta en el socket
+    
+    // Caché de productos
+    public static final int CACHE_MAX_SIZE = 100_000;                 // Productos en memoria
+    public static final long CACHE_TTL_MS = 60_000;                   // 1 minuto
+    
+    // Paginación de la tabla
+    public static final int TABLE_PAGE_SIZE = 200;                    // Filas por página
+    public static final int TABLE_MAX_CACHED_PAGES = 10;              // Páginas en memoria
+    
+    // Operaciones masivas
+    public static final int DB_BATCH_SIZE = 500;                      // Filas por viaje a la base de datos
+    public static final int DB_COMMIT_INTERVAL = 5000;                // Filas entre cada commit
+    
+    // Transacciones de ProductTransaction
+    public static final int DB_TRANSACTION_ISOLATION = java.sql.Connection.TRANSACTION_READ_COMMITTED;
+    
+    // Generación de IDs
+    public static final String DB_ID_SEQUENCE = "UMG.PRODUCTS_SEQ";
+    public static final int DB_ID_BLOCK_SIZE = 1000;                  // Debe coincidir con INCREMENT BY
+    
+    // Seguimiento de cambios (ROW_VERSION)
+    public static final long DB_DELTA_OVERLAP = 100;                  // Versiones que se vuelven a leer en cada refresco
+    
+    // Tareas en segundo plano de la interfaz
+    public static final int UI_WORKER_THREADS = 2;                    // Hilos para operaciones de base de datos
+    public static final long UI_DB_TIMEOUT_MS = 15_000;               // Tiempo límite de cada acción de la interfaz
+    
+    // Búsqueda mientras se escribe
+    public static final int SEARCH_DEBOUNCE_MS = 250;                 // Espera tras la última tecla
+    
+    // Importación masiva desde CSV
+    public static final int IMPORT_PARSER_THREADS = 2;                // Hilos que validan filas
+    public static final int IMPORT_WRITER_THREADS = 4;                // Conexiones usadas; menor que DB_POOL_MAX_SIZE
+    public static final int IMPORT_CHUNK_SIZE = 5000;                 // Filas por bloque (un commit por bloque)
+    public static final int IMPORT_QUEUE_CAPACITY = 8;                // Bloques en espera entre etapas
+    
+    // API asíncrona de productos
+    public static final long ASYNC_TIMEOUT_MS = 30_000;               // Tiempo límite por operación (0 = sin límite)
+    
+    // Escritura diferida de actualizaciones
+    public static final boolean WRITE_BEHIND_ENABLED = false;         // Actualizar encola en lugar de escribir al momento
+    public static final int WRITE_BEHIND_MAX_PENDING = 200;           // Ediciones que provocan una escritura inmediata
+    public static final long WRITE_BEHIND_FLUSH_MS = 2_000;           // Espera máxima de una edición en la cola
+    public static final long WRITE_BEHIND_EXIT_TIMEOUT_MS = 15_000;   // Espera al salir para escribir las pendientes
+    
+    // Copia local del catálogo para el arranque
+    public static final boolean SNAPSHOT_ENABLED = true;              // Mostrar y guardar la copia local
+    public static final String SNAPSHOT_FILE = System.getProperty("user.home")
+            + java.io.File.separator + ".umg-productos" + java.io.File.separator + "catalogo.bin";
+    public static final long SNAPSHOT_MAX_AGE_MS = 24 * 60 * 60 * 1000L; // Más antigua: se recarga todo en lugar de aplicar cambios
 }
@@ -0,0 +1,286 @@
+package edu.gt.rodrigocardenas.umg.utils;
+
+import edu.gt.rodrigocardenas.umg.models.Product;
+import edu.gt.rodrigocardenas.umg.utils.ResultadoLote.EstadoFila;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cola de escritura diferida para actualizaciones de productos. Las ediciones se
+ * guardan en memoria, varias ediciones del mismo PRODUCT_ID se combinan en la
+ * última, y un hilo en segundo plano las escribe con
+ * {@link ProductManager#actualizarProductos(List)} cuando se acumulan
+ * WRITE_BEHIND_MAX_PENDING o pasan WRITE_BEHIND_FLUSH_MS desde la primera edición
+ * pendiente. Los lotes se escriben en orden, uno a la vez, por lo que una edición
+ * nunca se adelanta a otra anterior del mismo producto.
+ * Hasta que se escriben, la caché y las consultas siguen viendo los valores
+ * anteriores; {@link #getSinConfirmar()} permite superponerlas a sus resultados.
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public class WriteBehindQueue {
+
+    private static final Logger logger = Logger.getLogger(WriteBehindQueue.class.getName());
+    private static final WriteBehindQueue instancia = new WriteBehindQueue(
+            UIConstants.WRITE_BEHIND_MAX_PENDING, UIConstants.WRITE_BEHIND_FLUSH_MS);
+
+    /**
+     * Recibe las ediciones que no se pudieron escribir. Se invoca en el hilo de
+     * escritura, no en el EDT.
+     */
+    public interface OyenteFallos {
+        /**
+         * @param productos Ediciones descartadas
+         * @param motivo Descripción del error
+         */
+        void escrituraFallida(List<Product> productos, String motivo);
+    }
+
+    private final int maximoPendientes;
+    private final long intervaloMs;
+    private final Map<Integer, Product> pendientes = new LinkedHashMap<>();
+    private long primeraEdicionNanos = 0;
+    // Lote que el hilo de escritura está escribiendo
+    private List<Product> enEscritura = Collections.emptyList();
+    private boolean vaciarAhora = false;
+    private boolean cerrada = false;
+    private Thread escritor;
+    private volatile OyenteFallos oyente = (productos, motivo) -> { };
+
+    /**
+     * Constructor
+     * @param maximoPendientes Productos pendientes que provocan una escritura inmediata
+     * @param intervaloMs Tiempo máximo que una edición espera en la cola
+     */
+    public WriteBehindQueue(int maximoPendientes, long intervaloMs) {
+        if (maximoPendientes <= 0 || intervaloMs <= 0) {
+            throw new IllegalArgumentException("El máximo de pendientes y el intervalo deben ser positivos");
+        }
+        this.maximoPendientes = maximoPendientes;
+        this.intervaloMs = intervaloMs;
+    }
+
+    /**
+     * Obtiene la cola compartida configurada con UIConstants
+     * @return Cola de escritura diferida
+     */
+    public static WriteBehindQueue getInstance() {
+        return instancia;
+    }
+
+    /**
+     * Define quién recibe las ediciones que no se pudieron escribir
+     * @param oyente Receptor de los fallos
+     */
+    public void setOyenteFallos(OyenteFallos oyente) {
+        this.oyente = oyente != null ? oyente : (productos, motivo) -> { };
+    }
+
+    /**
+     * Agrega una edición a la cola; reemplaza a la pendiente del mismo producto
+     * @param producto Producto con los nuevos valores
+     * @throws IllegalStateException si la cola ya se cerró
+     */
+    public synchronized void encolar(Product producto) {
+        if (cerrada) {
+            throw new IllegalStateException("La cola de escritura diferida está cerrada");
+        }
+        if (pendientes.isEmpty()) {
+            primeraEdicionNanos = System.nanoTime();
+        }
+        pendientes.put(producto.getProduct_id(), new Product(producto));
+        if (escritor == null) {
+            escritor = new Thread(this::escribirPendientes, "write-behind-flusher");
+            escritor.setDaemon(true);
+            escritor.start();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Quita la edición pendiente de un producto, por ejemplo antes de eliminarlo
+     * @param productId ID del producto
+     * @return true si había una edición pendiente
+     */
+    public synchronized boolean descartar(int productId) {
+        return pendientes.remove(productId) != null;
+    }
+
+    /**
+     * Obtiene la edición pendiente de un producto
+     * @param productId ID del producto
+     * @return Copia del producto pendiente, o null si no hay
+     */
+    public synchronized Product getPendiente(int productId) {
+        Product producto = pendientes.get(productId);
+        return producto != null ? new Product(producto) : null;
+    }
+
+    /**
+     * Obtiene las ediciones que aún no están confirmadas en la base de datos: las
+     * del lote en curso y las pendientes, en ese orden, para que al aplicarlas en
+     * orden prevalezca la más reciente de cada producto
+     * @return Copias de las ediciones sin confirmar
+     */
+    public synchronized List<Product> getSinConfirmar() {
+        List<Product> ediciones = new ArrayList<>(enEscritura.size() + pendientes.size());
+        for (Product producto : enEscritura) {
+            ediciones.add(new Product(producto));
+        }
+        for (Product producto : pendientes.values()) {
+            ediciones.add(new Product(producto));
+        }
+        return ediciones;
+    }
+
+    /**
+     * @return Número de ediciones que aún no se han escrito, incluidas las del lote en curso
+     */
+    public synchronized int getPendientes() {
+        return pendientes.size() + enEscritura.size();
+    }
+
+    /**
+     * Escribe de inmediato las ediciones pendientes y espera a que terminen
+     * @param tiempoLimiteMs Tiempo máximo de espera en milisegundos
+     * @return true si no quedaron ediciones sin escribir
+     * @throws InterruptedException si se interrumpe la espera
+     */
+    public synchronized boolean vaciar(long tiempoLimiteMs) throws InterruptedException {
+        long limite = System.nanoTime() + tiempoLimiteMs * 1_000_000L;
+        while (!pendientes.isEmpty() || !enEscritura.isEmpty()) {
+            long restanteMs = (limite - System.nanoTime()) / 1_000_000L;
+            if (restanteMs <= 0) {
+                return false;
+            }
+            // Se renueva en cada vuelta por si llegaron ediciones durante el lote anterior
+            vaciarAhora = true;
+            notifyAll();
+            wait(restanteMs);
+        }
+        return true;
+    }
+
+    /**
+     * Escribe las ediciones pendientes y detiene el hilo de escritura. Se usa al
+     * salir de la aplicación, antes de cerrar el pool de conexiones.
+     * @param tiempoLimiteMs Tiempo máximo de espera en milisegundos
+     * @return true si no quedaron ediciones sin escribir
+     */
+    public boolean cerrar(long tiempoLimiteMs) {
+        synchronized (this) {
+            cerrada = true;
+            notifyAll();
+        }
+        try {
+            boolean completa = vaciar(tiempoLimiteMs);
+            if (!completa) {
+                logger.severe(String.format("%d ediciones de productos no se escribieron al cerrar", getPendientes()));
+            }
+            return completa;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Bucle del hilo de escritura
+     */
+    private void escribirPendientes() {
+        while (true) {
+            List<Product> lote;
+            synchronized (this) {
+                try {
+                    while (!listoParaEscribir()) {
+                        if (cerrada && pendientes.isEmpty()) {
+                            escritor = null;
+                            return;
+                        }
+                        wait(pendientes.isEmpty() ? 0 : Math.max(1, esperaRestanteMs()));
+                    }
+                } catch (InterruptedException ex) {
+                    escritor = null;
+                    return;
+                }
+                lote = new ArrayList<>(pendientes.values());
+                pendientes.clear();
+                enEscritura = lote;
+                vaciarAhora = false;
+            }
+            try {
+                escribir(lote);
+            } finally {
+                synchronized (this) {
+                    enEscritura = Collections.emptyList();
+                    if (!pendientes.isEmpty()) {
+                        primeraEdicionNanos = System.nanoTime();
+                    }
+                    notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Indica si hay que escribir ya: por tamaño, por tiempo, por cierre o por vaciar()
+     */
+    private boolean listoParaEscribir() {
+        if (pendientes.isEmpty()) {
+            return false;
+        }
+        return vaciarAhora || cerrada || pendientes.size() >= maximoPendientes || esperaRestanteMs() <= 0;
+    }
+
+    private long esperaRestanteMs() {
+        return intervaloMs - (System.nanoTime() - primeraEdicionNanos) / 1_000_000L;
+    }
+
+    /**
+     * Escribe un lote y avisa de las filas que no se aplicaron
+     */
+    private void escribir(List<Product> lote) {
+        ResultadoLote resultado;
+        try {
+            resultado = ProductManager.actualizarProductos(lote);
+        } catch (RuntimeException ex) {
+            logger.log(Level.SEVERE, "Error al escribir " + lote.size() + " ediciones diferidas", ex);
+            notificar(lote, ex.getMessage());
+            return;
+        }
+        if (resultado.isCompleto()) {
+            return;
+        }
+
+        List<Product> noEncontrados = new ArrayList<>();
+        Map<String, List<Product>> errores = new LinkedHashMap<>();
+        for (int i = 0; i < resultado.getTotal(); i++) {
+            EstadoFila estado = resultado.getEstado(i);
+            if (estado == EstadoFila.NO_ENCONTRADO) {
+                noEncontrados.add(lote.get(i));
+            } else if (estado == EstadoFila.ERROR) {
+                String mensaje = resultado.getMensaje(i) != null ? resultado.getMensaje(i) : UIConstants.ERROR_MESSAGE;
+                errores.computeIfAbsent(mensaje, m -> new ArrayList<>()).add(lote.get(i));
+            }
+        }
+        if (!noEncontrados.isEmpty()) {
+            notificar(noEncontrados, "Los productos ya no existen en la base de datos");
+        }
+        for (Map.Entry<String, List<Product>> error : errores.entrySet()) {
+            notificar(error.getValue(), error.getKey());
+        }
+    }
+
+    private void notificar(List<Product> productos, String motivo) {
+        logger.warning(String.format("%d ediciones diferidas no se aplicaron: %s", productos.size(), motivo));
+        try {
+            oyente.escrituraFallida(productos, motivo);
+        } catch (RuntimeException ex) {
+            logger.log(Level.WARNING, "Error al notificar ediciones diferidas fallidas", ex);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package edu.gt.rodrigocardenas.umg.utils;
+
+import edu.gt.rodrigocardenas.umg.models.Product;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Pruebas de la copia local del catálogo: ida y vuelta completa, sobrescritura
+ * y archivos que deben ignorarse (CRC32 distinto, otra versión, incompletos)
+ * @author Rodrigo Gerardo Cárdenas Monroy
+ */
+public class CatalogSnapshotTest {
+
+    private static final int FILAS = 100_000;
+    private static final int TAMANO_ENCABEZADO = 40;
+
+    @Rule
+    public TemporaryFolder carpeta = new TemporaryFolder();
+
+    @Test
+    public void guardarYLeerConservaTodasLasFilas() throws IOException {
+        Path archivo = carpeta.getRoot().toPath().resolve("catalogo.bin");
+        ProductColumnStore productos = crearCatalogo(FILAS, "Producto ");
+
+        new CatalogSnapshot(productos, 42L, 1_000L).guardar(archivo);
+        CatalogSnapshot leida = CatalogSnapshot.leer(archivo);
+
+        assertNotNull(leida);
+        assertEquals(42L, leida.getToken());
+        assertEquals(1_000L, leida.getCreadoMs());
+        assertIguales(productos, leida.getProductos());
+    }
+
+    @Test
+    public void sobrescribirReemplazaLaCopiaAnterior() throws IOException {
+        Path archivo = carpeta.getRoot().toPath().resolve("catalogo.bin");
+        new CatalogSnapshot(crearCatalogo(FILAS, "Anterior "), 1L, 1_000L).guardar(archivo);
+        ProductColumnStore nuevos = crearCatalogo(FILAS / 2, "Artículo ñ ");
+
+        new CatalogSnapshot(nuevos, 2L, 2_000L).guardar(archivo);
+        CatalogSnapshot leida = CatalogSnapshot.leer(archivo);
+
+        assertNotNull(leida);
+        assertEquals(2L, leida.getToken());
+        assertEquals(2_000L, leida.getCreadoMs());
+        assertIguales(nuevos, leida.getProductos());
+        assertFalse(Files.exists(archivo.resolveSibling("catalogo.bin.tmp")));
+    }
+
+    @Test
+    public void crcDistintoSeIgnora() throws IOException {
+        Path archivo = guardarCopia();
+        byte[] datos = Files.readAllBytes(archivo);
+        datos[TAMANO_ENCABEZADO + datos.length / 2] ^= 0x01;
+        Files.write(archivo, datos);
+
+        assertNull(CatalogSnapshot.leer(archivo));
+    }
+
+    @Test
+    public void otraVersionSeIgnora() throws IOException {
+        Path archivo = guardarCopia();
+        byte[] datos = Files.readAllBytes(archivo);
+        ByteBuffer.wrap(datos).putInt(Integer.BYTES, 2);
+        Files.write(archivo, datos);
+
+        assertNull(CatalogSnapshot.leer(archivo));
+    }
+
+    @Test
+    public void archivoIncompletoSeIgnora() throws IOException {
+        Path archivo = guardarCopia();
+        byte[] datos = Files.readAllBytes(archivo);
+        Files.write(archivo, Arrays.copyOf(datos, datos.length - 1));
+
+        assertNull(CatalogSnapshot.leer(archivo));
+    }
+
+    @Test
+    public void archivoInexistenteDevuelveNull() {
+        assertNull(CatalogSnapshot.leer(carpeta.getRoot().toPath().resolve("no-existe.bin")));
+    }
+
+    /**
+     * Guarda una copia de prueba y devuelve su archivo
+     */
+    private Path guardarCopia() throws IOException {
+        Path archivo = carpeta.getRoot().toPath().resolve("catalogo.bin");
+        new CatalogSnapshot(crearCatalogo(FILAS, "Producto "), 7L, 1_000L).guardar(archivo);
+        assertNotNull(CatalogSnapshot.leer(archivo));
+        return archivo;
+    }
+
+    /**
+     * Catálogo ordenado por ID con precios, estados y longitudes de nombre variados
+     */
+    private static ProductColumnStore crearCatalogo(int filas, String prefijo) {
+        List<Product> productos = new ArrayList<>(filas);
+        for (int i = 0; i < filas; i++) {
+            String nombre = prefijo + i + (i % 7 == 0 ? " edición única" : "");
+            productos.add(new Product(i * 2 + 1, nombre, (i % 1000) + 0.25f, i % 3 == 0 ? "N" : "Y"));
+        }
+        return ProductColumnStore.desde(productos);
+    }
+
+    private static void assertIguales(ProductColumnStore esperado, ProductColumnStore actual) {
+        assertEquals(esperado.getTamano(), actual.getTamano());
+        for (int fila = 0; fila < esperado.getTamano(); fila++) {
+            assertEquals(esperado.getId(fila), actual.getId(fila));
+            assertEquals(esperado.getNombre(fila), actual.getNombre(fila));
+            assertEquals(esperado.getPrecio(fila), actual.getPrecio(fila), 0f);
+            assertEquals(esperado.isActivo(fila), actual.isActivo(fila));
+        }
+    }
+}